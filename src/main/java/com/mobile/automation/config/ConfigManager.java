@@ -78,6 +78,440 @@ public class ConfigManager {
         return properties.getProperty("app.path");
     }
 
+    /**
+     * Get directory for data the framework keeps between runs (verified shortcuts, checkpoints)
+     * @return cache directory path
+     */
+    public static String getCacheDir() {
+        return System.getProperty("cache.dir", properties.getProperty("cache.dir", ".automation-cache"));
+    }
+
+    /**
+     * Get the CSV or JSONL file with registration inputs for data-driven runs
+     * @return dataset path, or null when data-driven registration is not configured
+     */
+    public static String getRegistrationDataFile() {
+        return System.getProperty("registration.data.file", properties.getProperty("registration.data.file"));
+    }
+
+    /**
+     * Get the index of this node among all nodes sharing a run
+     * @return node shard index, 0 by default
+     */
+    public static int getShardIndex() {
+        return Integer.parseInt(System.getProperty("shard.index", properties.getProperty("shard.index", "0")));
+    }
+
+    /**
+     * Get the number of nodes sharing a run
+     * @return node shard count, 1 by default
+     */
+    public static int getShardCount() {
+        return Integer.parseInt(System.getProperty("shard.count", properties.getProperty("shard.count", "1")));
+    }
+
+    /**
+     * Get how test methods are split across nodes: "hash" of the method name, or "timing" using recorded durations
+     * @return shard strategy, "hash" by default
+     */
+    public static String getShardStrategy() {
+        return System.getProperty("shard.strategy", properties.getProperty("shard.strategy", "hash"));
+    }
+
+    /**
+     * Get the per-method timing dataset written by ResultArchiveMerger and used by timing-based sharding
+     * @return timings file path
+     */
+    public static String getTestTimingsFile() {
+        return System.getProperty("shard.timings.file",
+                properties.getProperty("shard.timings.file", getCacheDir() + "/test-timings.csv"));
+    }
+
+    /**
+     * Get the index of the device this JVM drives among the devices of its node
+     * @return device index, 0 by default
+     */
+    public static int getDeviceIndex() {
+        return Integer.parseInt(System.getProperty("device.index", properties.getProperty("device.index", "0")));
+    }
+
+    /**
+     * Get the number of devices on each node
+     * @return devices per node, 1 by default
+     */
+    public static int getDevicesPerNode() {
+        return Integer.parseInt(System.getProperty("devices.per.node", properties.getProperty("devices.per.node", "1")));
+    }
+
+    /**
+     * Get the global data shard of this JVM, combining node and device shards
+     * @return data shard index
+     */
+    public static int getDataShardIndex() {
+        return getShardIndex() * getDevicesPerNode() + getDeviceIndex();
+    }
+
+    /**
+     * Get the total number of data shards across all nodes and devices
+     * @return data shard count
+     */
+    public static int getDataShardCount() {
+        return getShardCount() * getDevicesPerNode();
+    }
+
+    /**
+     * Check if locator strategies should be timed during this run (locator.profile)
+     * @return true when locator profiling is enabled
+     */
+    public static boolean isLocatorProfilingEnabled() {
+        return Boolean.parseBoolean(System.getProperty("locator.profile", properties.getProperty("locator.profile", "false")));
+    }
+
+    /**
+     * Check if page objects should use the fastest locators recorded by earlier profiling runs (locator.prefer.fastest)
+     * @return true when recorded locator recommendations are applied
+     */
+    public static boolean isFastLocatorsEnabled() {
+        return Boolean.parseBoolean(System.getProperty("locator.prefer.fastest", properties.getProperty("locator.prefer.fastest", "true")));
+    }
+
+    /**
+     * Check if app memory, frame and CPU sampling should run alongside each driver session (perf.sampling)
+     * @return true when performance sampling is enabled
+     */
+    public static boolean isPerformanceSamplingEnabled() {
+        return Boolean.parseBoolean(System.getProperty("perf.sampling", properties.getProperty("perf.sampling", "false")));
+    }
+
+    /**
+     * Get the delay between performance samples
+     * @return sample interval in milliseconds, 1000 by default
+     */
+    public static long getPerformanceSampleIntervalMillis() {
+        return Long.parseLong(properties.getProperty("perf.sample.interval.ms", "1000"));
+    }
+
+    /**
+     * Get the relative slowdown of mean startup time tolerated before a significant change counts as a regression
+     * @return tolerance as a fraction, 0.05 by default
+     */
+    public static double getStartupRegressionTolerance() {
+        return Double.parseDouble(properties.getProperty("startup.regression.tolerance", "0.05"));
+    }
+
+    /**
+     * Check if app logcat lines should be captured for each test and dumped on failure (logcat.capture)
+     * @return true when logcat capture is enabled
+     */
+    public static boolean isLogcatCaptureEnabled() {
+        return Boolean.parseBoolean(System.getProperty("logcat.capture", properties.getProperty("logcat.capture", "true")));
+    }
+
+    /**
+     * Get the number of bytes of log lines kept per test
+     * @return ring buffer size in bytes, 512 KB by default
+     */
+    public static int getLogcatBufferBytes() {
+        return Integer.parseInt(properties.getProperty("logcat.buffer.bytes", "524288"));
+    }
+
+    /**
+     * Get the number of log lines kept per test
+     * @return ring buffer size in lines, 5000 by default
+     */
+    public static int getLogcatBufferLines() {
+        return Integer.parseInt(properties.getProperty("logcat.buffer.lines", "5000"));
+    }
+
+    /**
+     * Get the number of APK installs allowed to run at the same time during device preparation
+     * @return parallel install limit, 3 by default
+     */
+    public static int getMaxParallelInstalls() {
+        return Integer.parseInt(properties.getProperty("device.install.parallelism", "3"));
+    }
+
+    /**
+     * Get how long a test waits for a free prepared device
+     * @return device acquire timeout in seconds, 600 by default
+     */
+    public static int getDeviceAcquireTimeout() {
+        return Integer.parseInt(properties.getProperty("device.acquire.timeout", "600"));
+    }
+
+    /**
+     * Check if tests and framework background work should run on virtual threads (execution.mode=virtual, JDK 21+)
+     * @return true when virtual thread mode is requested
+     */
+    public static boolean isVirtualThreadModeEnabled() {
+        return "virtual".equalsIgnoreCase(System.getProperty("execution.mode", properties.getProperty("execution.mode", "platform")));
+    }
+
+    /**
+     * Check if the framework should start and supervise its own Appium servers instead of using appium.server.url
+     * @return true when appium.server.managed=true
+     */
+    public static boolean isManagedAppiumServerEnabled() {
+        return Boolean.parseBoolean(System.getProperty("appium.server.managed", properties.getProperty("appium.server.managed", "false")));
+    }
+
+    /**
+     * Get the command that starts a managed Appium server; the manager appends --address and --port
+     * @return server command, "appium" by default
+     */
+    public static String getAppiumServerCommand() {
+        return System.getProperty("appium.server.command", properties.getProperty("appium.server.command", "appium"));
+    }
+
+    /**
+     * Get the first port tried for managed Appium servers
+     * @return base server port
+     */
+    public static int getAppiumServerBasePort() {
+        return Integer.parseInt(properties.getProperty("appium.server.base.port", "4723"));
+    }
+
+    /**
+     * Get the first port tried for UiAutomator2 systemPort allocation
+     * @return base systemPort
+     */
+    public static int getSystemPortBase() {
+        return Integer.parseInt(properties.getProperty("appium.systemPort.base", "8200"));
+    }
+
+    /**
+     * Get the first port tried for chromedriver port allocation
+     * @return base chromedriver port
+     */
+    public static int getChromedriverPortBase() {
+        return Integer.parseInt(properties.getProperty("appium.chromedriverPort.base", "9515"));
+    }
+
+    /**
+     * Get how many devices share one managed Appium server
+     * @return devices per server, 1 by default
+     */
+    public static int getDevicesPerAppiumServer() {
+        return Integer.parseInt(properties.getProperty("appium.server.devices.per.instance", "1"));
+    }
+
+    /**
+     * Get how long to wait for a managed Appium server to answer /status
+     * @return start timeout in seconds
+     */
+    public static int getAppiumServerStartTimeout() {
+        return Integer.parseInt(properties.getProperty("appium.server.start.timeout", "60"));
+    }
+
+    /**
+     * Check if session capabilities should be chosen by probing the device instead of always doing a full setup
+     * @return true unless capabilities.negotiate=false
+     */
+    public static boolean isCapabilityNegotiationEnabled() {
+        return Boolean.parseBoolean(System.getProperty("capabilities.negotiate", properties.getProperty("capabilities.negotiate", "true")));
+    }
+
+    /**
+     * Get the app versionName to assume for the APK at app.path instead of reading it from the APK
+     * @return expected app version, or null to read versionName and versionCode from the APK
+     */
+    public static String getExpectedAppVersion() {
+        return System.getProperty("app.version", properties.getProperty("app.version"));
+    }
+
+    /**
+     * Get the UiAutomator2 server versionName the installed Appium driver expects
+     * @return expected server version, or null to accept any matching server/test APK pair
+     */
+    public static String getExpectedUiAutomator2ServerVersion() {
+        return properties.getProperty("uiautomator2.server.version");
+    }
+
+    /**
+     * Get how often SessionReaper looks for orphaned sessions and device leases
+     * @return sweep interval in seconds, 60 by default
+     */
+    public static int getSessionReaperInterval() {
+        return Integer.parseInt(properties.getProperty("session.reaper.interval", "60"));
+    }
+
+    /**
+     * Get how long a session may live before SessionReaper deletes it as stuck
+     * @return maximum session duration in seconds, 1800 by default
+     */
+    public static int getMaxSessionDuration() {
+        return Integer.parseInt(properties.getProperty("session.max.duration", "1800"));
+    }
+
+    /**
+     * Get the port of the live metrics endpoint
+     * @return metrics port, or -1 (default) when the endpoint is disabled
+     */
+    public static int getMetricsPort() {
+        return Integer.parseInt(System.getProperty("metrics.port", properties.getProperty("metrics.port", "-1")));
+    }
+
+    /**
+     * Get the address the live metrics endpoint listens on
+     * Metrics name devices and tests, so other hosts can only read them when this is set explicitly, e.g. to 0.0.0.0
+     * @return bind address, or null (default) for the loopback interface only
+     */
+    public static String getMetricsHost() {
+        return System.getProperty("metrics.host", properties.getProperty("metrics.host"));
+    }
+
+    /**
+     * Check if suite, test, step, driver command and adb spans should be recorded into a Chrome trace file
+     * @return true when trace.enabled=true
+     */
+    public static boolean isTraceEnabled() {
+        return Boolean.parseBoolean(System.getProperty("trace.enabled", properties.getProperty("trace.enabled", "false")));
+    }
+
+    /**
+     * Check if BasePage waits should use per-element timeouts learned from earlier runs
+     * @return true unless wait.learned=false
+     */
+    public static boolean isLearnedWaitEnabled() {
+        return Boolean.parseBoolean(System.getProperty("wait.learned", properties.getProperty("wait.learned", "true")));
+    }
+
+    /**
+     * Get the factor applied to an element's p99 appearance time to get its timeout
+     * @return safety factor, 3.0 by default
+     */
+    public static double getLearnedWaitSafetyFactor() {
+        return Double.parseDouble(properties.getProperty("wait.learned.factor", "3.0"));
+    }
+
+    /**
+     * Get the shortest learned element timeout
+     * @return floor in seconds, 2 by default
+     */
+    public static int getLearnedWaitFloor() {
+        return Integer.parseInt(properties.getProperty("wait.learned.floor", "2"));
+    }
+
+    /**
+     * Get the longest learned element timeout
+     * @return ceiling in seconds, 60 by default
+     */
+    public static int getLearnedWaitCeiling() {
+        return Integer.parseInt(properties.getProperty("wait.learned.ceiling", "60"));
+    }
+
+    /**
+     * Check if page objects should be bound with the locator classes generated at build time instead of PageFactory
+     * @return true unless pages.generated=false
+     */
+    public static boolean isGeneratedLocatorsEnabled() {
+        return Boolean.parseBoolean(System.getProperty("pages.generated", properties.getProperty("pages.generated", "true")));
+    }
+
+    /**
+     * Get the first and shortest poll interval while waiting for a screen transition
+     * @return interval in milliseconds, 50 by default
+     */
+    public static int getTransitionPollMin() {
+        return Integer.parseInt(properties.getProperty("transition.poll.min", "50"));
+    }
+
+    /**
+     * Get the longest poll interval while waiting for a screen transition
+     * @return interval in milliseconds, 500 by default
+     */
+    public static int getTransitionPollMax() {
+        return Integer.parseInt(properties.getProperty("transition.poll.max", "500"));
+    }
+
+    /**
+     * Check if page objects should apply their @UiAutomatorSettings profile when created
+     * @return true unless pages.settings=false
+     */
+    public static boolean isPageSettingsEnabled() {
+        return Boolean.parseBoolean(System.getProperty("pages.settings", properties.getProperty("pages.settings", "true")));
+    }
+
+    /**
+     * Get the text entry strategies to try, in order: replace, type, paste, send_keys
+     * @return comma-separated strategy names
+     */
+    public static String getTextEntryStrategies() {
+        return System.getProperty("text.entry.strategies", properties.getProperty("text.entry.strategies", "replace,type,paste,send_keys"));
+    }
+
+    /**
+     * Check if sessions should be kept for the next test on the same device instead of quit; set by TestDaemon
+     * @return true when session.reuse=true
+     */
+    public static boolean isSessionReuseEnabled() {
+        return Boolean.parseBoolean(System.getProperty("session.reuse", properties.getProperty("session.reuse", "false")));
+    }
+
+    /**
+     * Get the local port TestDaemon listens on
+     * @return port, 7878 by default
+     */
+    public static int getDaemonPort() {
+        return Integer.parseInt(System.getProperty("daemon.port", properties.getProperty("daemon.port", "7878")));
+    }
+
+    /**
+     * Get how many recent durations per flow and step the latency baseline keeps
+     * @return run count, 20 by default
+     */
+    public static int getLatencyBaselineRuns() {
+        return Integer.parseInt(properties.getProperty("latency.baseline.runs", "20"));
+    }
+
+    /**
+     * Get how many earlier durations a flow or step needs before it is checked for regressions
+     * @return run count, 5 by default
+     */
+    public static int getLatencyBaselineMinRuns() {
+        return Integer.parseInt(properties.getProperty("latency.baseline.min.runs", "5"));
+    }
+
+    /**
+     * Get by how much a duration must exceed the baseline median, as a fraction, to count as a regression
+     * @return tolerance, 0.2 by default
+     */
+    public static double getLatencyRegressionTolerance() {
+        return Double.parseDouble(properties.getProperty("latency.regression.tolerance", "0.2"));
+    }
+
+    /**
+     * Check if passed tests with latency regressions or exceeded budgets should fail
+     * @return true when latency.gate=true
+     */
+    public static boolean isLatencyGateEnabled() {
+        return Boolean.parseBoolean(System.getProperty("latency.gate", properties.getProperty("latency.gate", "false")));
+    }
+
+    /**
+     * Get whether driver commands are recorded into the cassette, replayed from it, or neither
+     * @return "record", "replay" or "off" (default)
+     */
+    public static String getCassetteMode() {
+        return System.getProperty("cassette.mode", properties.getProperty("cassette.mode", "off"));
+    }
+
+    /**
+     * Get the driver cassette file
+     * @return cassette path, cassettes/driver-cassette.zip by default
+     */
+    public static String getCassetteFile() {
+        return System.getProperty("cassette.file", properties.getProperty("cassette.file", "cassettes/driver-cassette.zip"));
+    }
+
+    /**
+     * Get how fast a cassette is replayed: "fast" answers at once, "original" waits as long as the server did
+     * @return replay timing, "fast" by default
+     */
+    public static String getCassetteTiming() {
+        return System.getProperty("cassette.timing", properties.getProperty("cassette.timing", "fast"));
+    }
+
     public static String getRegisterCountry(){ return properties.getProperty("register.country");}
     
     public static String getProperty(String key) {
@@ -0,0 +1,106 @@
+package com.mobile.automation.context;
+
+import io.appium.java_client.AppiumDriver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-test state (driver session, leased device and per-test helpers such as the report entry or log capture)
+ * Replaces the separate ThreadLocals each class used to keep: one context is bound to the thread running a test,
+ * and close() releases it so pooled carrier threads do not keep state from earlier tests
+ * Background work (performance samplers, logcat readers, the session reaper) deliberately runs without a context,
+ * so its adb commands are never attributed to a test, e.g. recorded into its driver cassette
+ */
+public final class TestContext {
+    private static final ThreadLocal<TestContext> bound = new ThreadLocal<>();
+
+    private final Map<Class<?>, Object> attributes = new ConcurrentHashMap<>();
+    private volatile AppiumDriver driver;
+    private volatile String deviceSerial;
+    private volatile boolean closed;
+
+    /**
+     * Get the context bound to the calling thread, binding a new one if there is none
+     * @return TestContext of the current test
+     */
+    public static TestContext current() {
+        TestContext context = bound.get();
+        if (context == null) {
+            context = new TestContext();
+            bound.set(context);
+        }
+        return context;
+    }
+
+    /**
+     * Get the context bound to the calling thread without binding one
+     * @return bound TestContext, or null when the thread is not running a test
+     */
+    public static TestContext peek() {
+        return bound.get();
+    }
+
+    /**
+     * Unbind the context of the calling thread at the end of a test
+     * Resources still held by a closed context are reclaimed by SessionReaper
+     */
+    public static void close() {
+        TestContext context = bound.get();
+        if (context != null) {
+            context.closed = true;
+        }
+        bound.remove();
+    }
+
+    /**
+     * Check whether the test owning this context has ended
+     * @return true after close() was called for this context
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public AppiumDriver getDriver() {
+        return driver;
+    }
+
+    public void setDriver(AppiumDriver driver) {
+        this.driver = driver;
+    }
+
+    public String getDeviceSerial() {
+        return deviceSerial;
+    }
+
+    public void setDeviceSerial(String deviceSerial) {
+        this.deviceSerial = deviceSerial;
+    }
+
+    /**
+     * Get a per-test helper stored by its type
+     * @param type Attribute type
+     * @return attribute value, or null if not set
+     */
+    public <T> T get(Class<T> type) {
+        return type.cast(attributes.get(type));
+    }
+
+    /**
+     * Store a per-test helper by its type, replacing any previous value
+     * @param type Attribute type
+     * @param value Attribute value
+     */
+    public <T> void put(Class<T> type, T value) {
+        attributes.put(type, value);
+    }
+
+    /**
+     * Remove a per-test helper
+     * @param type Attribute type
+     * @return removed value, or null if not set
+     */
+    public <T> T remove(Class<T> type) {
+        return type.cast(attributes.remove(type));
+    }
+}
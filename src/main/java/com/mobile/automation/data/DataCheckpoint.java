@@ -0,0 +1,126 @@
+package com.mobile.automation.data;
+
+import com.mobile.automation.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only record of completed dataset rows for one shard
+ * Rows are appended as soon as they complete so a crashed run can resume where it stopped
+ */
+public class DataCheckpoint {
+    private static final Logger logger = LoggerFactory.getLogger(DataCheckpoint.class);
+    private static final Map<String, DataCheckpoint> checkpoints = new ConcurrentHashMap<>();
+
+    private final File file;
+    private final BitSet completed = new BitSet();
+    private Writer writer;
+
+    private DataCheckpoint(String name) {
+        this.file = new File(ConfigManager.getCacheDir(), "data-checkpoints" + File.separator + name + ".done");
+        load();
+    }
+
+    /**
+     * Get the checkpoint shared by every data provider and test of a dataset shard in this JVM
+     * @param dataset Dataset name
+     * @param shardIndex Shard index
+     * @param shardCount Shard count
+     * @return DataCheckpoint for the shard
+     */
+    public static DataCheckpoint forShard(String dataset, int shardIndex, int shardCount) {
+        return checkpoints.computeIfAbsent(dataset + "-shard" + shardIndex + "of" + shardCount, DataCheckpoint::new);
+    }
+
+    /**
+     * Get the checkpoint of the shard configured for this JVM
+     * @param dataset Dataset name
+     * @return DataCheckpoint for the configured shard
+     */
+    public static DataCheckpoint forConfiguredShard(String dataset) {
+        return forShard(dataset, ConfigManager.getDataShardIndex(), ConfigManager.getDataShardCount());
+    }
+
+    /**
+     * Check whether a row was completed in a previous or the current run
+     * @param rowNumber Row number in the dataset
+     * @return true if the row is already done
+     */
+    public synchronized boolean isCompleted(long rowNumber) {
+        return completed.get(Math.toIntExact(rowNumber));
+    }
+
+    /**
+     * Record a row as completed
+     * @param rowNumber Row number in the dataset
+     */
+    public synchronized void markCompleted(long rowNumber) {
+        int index = Math.toIntExact(rowNumber);
+        if (completed.get(index)) {
+            return;
+        }
+        completed.set(index);
+        try {
+            if (writer == null) {
+                file.getParentFile().mkdirs();
+                writer = new FileWriter(file, true);
+            }
+            writer.write(rowNumber + "\n");
+            writer.flush();
+        } catch (IOException e) {
+            logger.warn("Could not record completed row {} in {}", rowNumber, file, e);
+        }
+    }
+
+    /**
+     * Delete the checkpoint so the next run starts from the first row
+     */
+    public synchronized void reset() {
+        close();
+        completed.clear();
+        if (file.exists() && !file.delete()) {
+            logger.warn("Failed to delete checkpoint {}", file);
+        }
+    }
+
+    /**
+     * Close the underlying checkpoint file
+     */
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                logger.debug("Error closing checkpoint {}", file, e);
+            }
+            writer = null;
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    completed.set(Integer.parseInt(line.trim()));
+                }
+            }
+            logger.info("Resuming from checkpoint {} with {} completed rows", file, completed.cardinality());
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Could not read checkpoint {}, ignoring the rest of it", file, e);
+        }
+    }
+}
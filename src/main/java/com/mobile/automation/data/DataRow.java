@@ -0,0 +1,50 @@
+package com.mobile.automation.data;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * One row of a data-driven test dataset
+ * Carries its position in the source file so completed rows can be checkpointed
+ */
+public class DataRow {
+    private final String dataset;
+    private final long rowNumber;
+    private final Map<String, String> values;
+
+    public DataRow(String dataset, long rowNumber, Map<String, String> values) {
+        this.dataset = dataset;
+        this.rowNumber = rowNumber;
+        this.values = Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Get the name of the dataset this row was read from
+     * @return dataset name
+     */
+    public String getDataset() {
+        return dataset;
+    }
+
+    /**
+     * Get the zero-based position of this row in the dataset, not counting the CSV header
+     * @return row number
+     */
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * Get a column value
+     * @param column Column name (CSV header or JSON field name)
+     * @return String value, or null when the row has no such column
+     */
+    public String get(String column) {
+        return values.get(column);
+    }
+
+    @Override
+    public String toString() {
+        return dataset + "#" + rowNumber + " " + values;
+    }
+}
@@ -0,0 +1,196 @@
+package com.mobile.automation.data;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.utils.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily streams rows of a CSV or JSONL file for use as a TestNG DataProvider
+ * Only the current line is held in memory, so memory use does not depend on dataset size
+ * Rows are assigned to shards by row number modulo shard count, which is the same on every node,
+ * and rows already recorded in the shard checkpoint are skipped
+ */
+public class StreamingDataSource implements Iterator<Object[]>, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingDataSource.class);
+
+    private final String dataset;
+    private final boolean jsonLines;
+    private final int shardIndex;
+    private final int shardCount;
+    private final DataCheckpoint checkpoint;
+    private final BufferedReader reader;
+    private List<String> header;
+    private long nextRowNumber;
+    private DataRow next;
+    private boolean closed;
+
+    /**
+     * Open a dataset for streaming
+     * @param file CSV file with a header line, or JSONL file with one object per line
+     * @param shardIndex Index of this shard, from 0 to shardCount - 1
+     * @param shardCount Total number of shards across all nodes and devices, see ConfigManager.getDataShardCount()
+     * @param checkpoint Checkpoint of completed rows for this shard, or null to run every row
+     */
+    public StreamingDataSource(File file, int shardIndex, int shardCount, DataCheckpoint checkpoint) {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Invalid shard " + shardIndex + " of " + shardCount);
+        }
+        this.dataset = getDatasetName(file);
+        this.jsonLines = file.getName().endsWith(".jsonl");
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+        this.checkpoint = checkpoint;
+        try {
+            this.reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+            if (!jsonLines) {
+                String headerLine = reader.readLine();
+                if (headerLine == null) {
+                    throw new IllegalArgumentException("CSV dataset has no header: " + file);
+                }
+                this.header = parseCsvLine(headerLine);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open dataset " + file, e);
+        }
+        logger.info("Streaming dataset {} as shard {} of {}", dataset, shardIndex, shardCount);
+    }
+
+    /**
+     * Open a dataset as the data shard configured for this JVM, resuming from its checkpoint
+     * @param file Dataset file
+     * @return StreamingDataSource for the configured shard
+     */
+    public static StreamingDataSource forConfiguredShard(File file) {
+        return new StreamingDataSource(file, ConfigManager.getDataShardIndex(), ConfigManager.getDataShardCount(),
+                DataCheckpoint.forConfiguredShard(getDatasetName(file)));
+    }
+
+    /**
+     * Get the dataset name derived from a file name
+     * @param file Dataset file
+     * @return file name without extension
+     */
+    public static String getDatasetName(File file) {
+        String name = file.getName();
+        int extension = name.lastIndexOf('.');
+        return extension > 0 ? name.substring(0, extension) : name;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !closed) {
+            next = readNextRow();
+            if (next == null) {
+                close();
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Object[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        DataRow row = next;
+        next = null;
+        return new Object[]{row};
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            logger.debug("Error closing dataset {}", dataset, e);
+        }
+    }
+
+    private DataRow readNextRow() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                long rowNumber = nextRowNumber++;
+                if (rowNumber % shardCount != shardIndex) {
+                    continue;
+                }
+                if (checkpoint != null && checkpoint.isCompleted(rowNumber)) {
+                    continue;
+                }
+                return new DataRow(dataset, rowNumber, jsonLines ? parseJsonLine(line) : toMap(parseCsvLine(line)));
+            }
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read dataset " + dataset, e);
+        }
+    }
+
+    private Map<String, String> toMap(List<String> fields) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < header.size() && i < fields.size(); i++) {
+            values.put(header.get(i), fields.get(i));
+        }
+        return values;
+    }
+
+    private Map<String, String> parseJsonLine(String line) throws IOException {
+        Map<String, String> values = new LinkedHashMap<>();
+        JsonNode node = Json.MAPPER.readTree(line);
+        node.fields().forEachRemaining(entry -> values.put(entry.getKey(), entry.getValue().asText()));
+        return values;
+    }
+
+    /**
+     * Parse one CSV line, supporting quoted fields with escaped quotes
+     * Quoted fields spanning several lines are not supported
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -2,16 +2,20 @@ package com.mobile.automation.pages;
 
 import com.mobile.automation.config.ConfigManager;
 import com.mobile.automation.utils.DriverManager;
+import com.mobile.automation.utils.RunMetrics;
+import com.mobile.automation.utils.TraceRecorder;
 import io.appium.java_client.AppiumDriver;
-import io.appium.java_client.pagefactory.AppiumFieldDecorator;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.PageFactory;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Base Page class that provides common functionality for all page objects
@@ -20,6 +24,7 @@ public abstract class BasePage {
     protected static final Logger logger = LoggerFactory.getLogger(BasePage.class);
     protected AppiumDriver driver;
     protected WebDriverWait wait;
+    private Gestures gestures;
     
     /**
      * Constructor to initialize driver and wait
@@ -27,7 +32,24 @@ public abstract class BasePage {
     public BasePage() {
         this.driver = DriverManager.getDriver();
         this.wait = new WebDriverWait(driver, Duration.ofSeconds(ConfigManager.getExplicitWait()));
-        PageFactory.initElements(new AppiumFieldDecorator(driver), this);
+        PageSettings.apply(driver, getClass());
+        initElements();
+    }
+    
+    /**
+     * Bind the @AndroidFindBy fields with the locators generated at build time, or with PageFactory when the page
+     * has none or locators are being profiled
+     */
+    @SuppressWarnings("unchecked")
+    private void initElements() {
+        PageLocators<BasePage> locators = ConfigManager.isGeneratedLocatorsEnabled() && !ConfigManager.isLocatorProfilingEnabled()
+                ? (PageLocators<BasePage>) PageLocators.forPage(getClass())
+                : null;
+        if (locators != null) {
+            locators.bind(this, driver);
+        } else {
+            PageFactory.initElements(new FastLocatorFieldDecorator(driver, getClass()), this);
+        }
     }
     
     /**
@@ -37,7 +59,7 @@ public abstract class BasePage {
      */
     protected WebElement waitForElementToBeVisible(WebElement element) {
         try {
-            return wait.until(ExpectedConditions.visibilityOf(element));
+            return waitUntil(element, ExpectedConditions.visibilityOf(element));
         } catch (Exception e) {
             logger.error("Element not visible: {}", element, e);
             throw new RuntimeException("Element not visible", e);
@@ -51,19 +73,52 @@ public abstract class BasePage {
      */
     protected WebElement waitForElementToBeClickable(WebElement element) {
         try {
-            return wait.until(ExpectedConditions.elementToBeClickable(element));
+            return waitUntil(element, ExpectedConditions.elementToBeClickable(element));
         } catch (Exception e) {
             logger.error("Element not clickable: {}", element, e);
             throw new RuntimeException("Element not clickable", e);
         }
     }
     
+    /**
+     * Wait for a condition on an element with the element's learned timeout and record how long it took
+     * A wait that times out fails at the learned timeout and is recorded as taking that long, so an element that
+     * became slower raises its timeout for the next waits while missing elements still fail fast
+     * @param element WebElement the condition is about
+     * @param condition Condition to wait for
+     * @return condition result
+     */
+    private <T> T waitUntil(WebElement element, ExpectedCondition<T> condition) {
+        String key = getClass().getSimpleName() + "|" + element;
+        Duration timeout = ElementTimeouts.getTimeout(key);
+        // A lookup blocked by the implicit wait would outlast a shorter learned timeout
+        boolean shortTimeout = timeout.getSeconds() < ConfigManager.getImplicitWait();
+        if (shortTimeout) {
+            driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+        }
+        long start = System.nanoTime();
+        try {
+            T result = new WebDriverWait(driver, timeout).until(condition);
+            ElementTimeouts.record(key, (System.nanoTime() - start) / 1_000_000);
+            return result;
+        } catch (TimeoutException e) {
+            // Censored sample: the element took at least this long
+            ElementTimeouts.record(key, (System.nanoTime() - start) / 1_000_000);
+            throw e;
+        } finally {
+            RunMetrics.PAGE_WAIT.observeSince(start);
+            if (shortTimeout) {
+                driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(ConfigManager.getImplicitWait()));
+            }
+        }
+    }
+    
     /**
      * Safe click method with wait
      * @param element WebElement to click
      */
     public void safeClick(WebElement element) {
-        try {
+        try (TraceRecorder.Span ignored = TraceRecorder.begin("safeClick", "page", element)) {
             WebElement clickableElement = waitForElementToBeClickable(element);
             clickableElement.click();
             logger.info("Successfully clicked element: {}", element);
@@ -79,10 +134,9 @@ public abstract class BasePage {
      * @param text Text to send
      */
     protected void safeSendKeys(WebElement element, String text) {
-        try {
+        try (TraceRecorder.Span ignored = TraceRecorder.begin("safeSendKeys", "page", element)) {
             WebElement visibleElement = waitForElementToBeVisible(element);
-            visibleElement.clear();
-            visibleElement.sendKeys(text);
+            TextEntry.enter(driver, getClass().getSimpleName() + "|" + element, visibleElement, text);
             logger.info("Successfully entered text '{}' in element: {}", text, element);
         } catch (Exception e) {
             logger.error("Failed to send keys to element: {}", element, e);
@@ -90,13 +144,22 @@ public abstract class BasePage {
         }
     }
     
+    /**
+     * Enter text without waiting for the element, using the fastest text entry strategy that works for it
+     * @param element WebElement to enter text into
+     * @param text Text to enter
+     */
+    protected void enterText(WebElement element, String text) {
+        TextEntry.enter(driver, getClass().getSimpleName() + "|" + element, element, text);
+    }
+    
     /**
      * Get text from element with wait
      * @param element WebElement to get text from
      * @return String text content
      */
     protected String safeGetText(WebElement element) {
-        try {
+        try (TraceRecorder.Span ignored = TraceRecorder.begin("safeGetText", "page", element)) {
             WebElement visibleElement = waitForElementToBeVisible(element);
             String text = visibleElement.getText();
             logger.info("Successfully retrieved text '{}' from element: {}", text, element);
@@ -121,6 +184,69 @@ public abstract class BasePage {
         }
     }
     
+    /**
+     * Get the gesture engine of this page's session
+     * @return Gestures sending each fling, scroll, swipe or pinch as one W3C Actions request
+     */
+    protected Gestures gestures() {
+        if (gestures == null) {
+            gestures = new Gestures(driver);
+        }
+        return gestures;
+    }
+    
+    /**
+     * Perform an action and wait until the screen fingerprint (activity plus hierarchy shape) differs from the one
+     * before the action and reads the same twice in a row
+     * Polls every transition.poll.min ms while the screen is changing and backs off up to transition.poll.max ms
+     * while it is not
+     * @param action Action that triggers the transition
+     * @return fingerprint of the new screen
+     */
+    protected ScreenFingerprint awaitTransition(Runnable action) {
+        try (TraceRecorder.Span ignored = TraceRecorder.begin("transition", "page", getClass().getSimpleName())) {
+            ScreenFingerprint before = captureScreen();
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.SECONDS.toNanos(ConfigManager.getExplicitWait());
+            int minInterval = ConfigManager.getTransitionPollMin();
+            int maxInterval = ConfigManager.getTransitionPollMax();
+            action.run();
+
+            ScreenFingerprint previous = before;
+            long interval = minInterval;
+            while (true) {
+                ScreenFingerprint current = captureScreen();
+                if (!current.equals(before) && current.equals(previous)) {
+                    RunMetrics.SCREEN_TRANSITION.observeSince(start);
+                    logger.info("Screen changed from {} to {} in {} ms", before, current, (System.nanoTime() - start) / 1_000_000);
+                    return current;
+                }
+                // Poll quickly while the screen is settling, back off while it has not started changing
+                interval = current.equals(previous) ? Math.min(interval * 2, maxInterval) : minInterval;
+                previous = current;
+                if (System.nanoTime() >= deadline) {
+                    RunMetrics.SCREEN_TRANSITION.observeSince(start);
+                    if (current.equals(before)) {
+                        throw new RuntimeException("Screen " + before + " did not change within " + ConfigManager.getExplicitWait() + " s");
+                    }
+                    logger.warn("Screen {} did not settle within {} s, continuing", current, ConfigManager.getExplicitWait());
+                    return current;
+                }
+                Thread.sleep(interval);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for screen transition", e);
+        }
+    }
+    
+    private ScreenFingerprint captureScreen() {
+        long start = System.nanoTime();
+        ScreenFingerprint fingerprint = ScreenFingerprint.capture(driver);
+        PageSettings.recordPageSource(getClass().getSimpleName(), start);
+        return fingerprint;
+    }
+    
     /**
      * Abstract method to verify page is loaded
      * Each page should implement this method to verify critical elements
@@ -0,0 +1,62 @@
+package com.mobile.automation.pages;
+
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.utils.DriverCassette;
+import com.mobile.automation.utils.RollingSamples;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Per-element wait timeouts learned from how long each element took to appear in earlier runs
+ * The timeout is the p99 of the recent appearance times times wait.learned.factor, kept between
+ * wait.learned.floor and wait.learned.ceiling; elements with too few samples use explicit.wait
+ * A wait that times out is recorded as taking its full timeout; that sample becomes the p99 of the element, so the
+ * next timeout is wait.learned.factor times longer and an element that got slower is learned again
+ * Samples are stored in the cache directory and written at suite end
+ */
+public class ElementTimeouts {
+    private static final int MAX_SAMPLES = 100;
+    private static final int MIN_SAMPLES = 5;
+
+    private static final RollingSamples samples = new RollingSamples("element-wait-timings.properties", "element wait timings");
+
+    /**
+     * Get the timeout to wait for an element
+     * @param key Element key as "PageClass|locator"
+     * @return learned timeout, or explicit.wait when learning is off, a cassette is active or the element has too
+     * few samples
+     */
+    public static Duration getTimeout(String key) {
+        Duration defaultTimeout = Duration.ofSeconds(ConfigManager.getExplicitWait());
+        if (!ConfigManager.isLearnedWaitEnabled() || DriverCassette.isActive()) {
+            return defaultTimeout;
+        }
+        List<Long> history = samples.get(key);
+        if (history.size() < MIN_SAMPLES) {
+            return defaultTimeout;
+        }
+        long[] sorted = history.stream().mapToLong(Long::longValue).sorted().toArray();
+        long p99 = sorted[Math.max(0, (int) Math.ceil(sorted.length * 0.99) - 1)];
+        long timeout = Math.round(p99 * ConfigManager.getLearnedWaitSafetyFactor());
+        timeout = Math.max(timeout, ConfigManager.getLearnedWaitFloor() * 1000L);
+        timeout = Math.min(timeout, ConfigManager.getLearnedWaitCeiling() * 1000L);
+        return Duration.ofMillis(timeout);
+    }
+
+    /**
+     * Record how long an element took to appear
+     * @param key Element key as "PageClass|locator"
+     * @param millis Time until the wait succeeded, or the time waited when it timed out
+     */
+    public static void record(String key, long millis) {
+        samples.add(key, millis, MAX_SAMPLES);
+    }
+
+    /**
+     * Write the recorded samples to the cache directory
+     */
+    public static void save() {
+        samples.save();
+    }
+}
@@ -0,0 +1,84 @@
+package com.mobile.automation.pages;
+
+import com.mobile.automation.config.ConfigManager;
+import io.appium.java_client.AppiumBy;
+import io.appium.java_client.pagefactory.AndroidFindBy;
+import io.appium.java_client.pagefactory.AppiumFieldDecorator;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.pagefactory.DefaultFieldDecorator;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+import org.openqa.selenium.support.pagefactory.FieldDecorator;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * Field decorator that looks up @AndroidFindBy(id = ...) elements with the fastest locator measured by LocatorProfiler
+ * In profiling mode, elements are found with their declared id and the alternatives are timed after each first lookup
+ * Fields without a recommendation are decorated by AppiumFieldDecorator as before
+ */
+public class FastLocatorFieldDecorator implements FieldDecorator {
+    private final WebDriver driver;
+    private final Class<?> pageClass;
+    private final AppiumFieldDecorator appiumDecorator;
+    private final DefaultFieldDecorator locatorDecorator;
+
+    public FastLocatorFieldDecorator(WebDriver driver, Class<?> pageClass) {
+        this.driver = driver;
+        this.pageClass = pageClass;
+        this.appiumDecorator = new AppiumFieldDecorator(driver);
+        this.locatorDecorator = new DefaultFieldDecorator(this::createLocator);
+    }
+
+    @Override
+    public Object decorate(ClassLoader loader, Field field) {
+        Object proxy = locatorDecorator.decorate(loader, field);
+        return proxy != null ? proxy : appiumDecorator.decorate(loader, field);
+    }
+
+    private ElementLocator createLocator(Field field) {
+        AndroidFindBy findBy = field.getAnnotation(AndroidFindBy.class);
+        if (findBy == null || findBy.id().isEmpty()) {
+            return null;
+        }
+        String key = pageClass.getSimpleName() + "." + field.getName();
+        if (ConfigManager.isLocatorProfilingEnabled()) {
+            return new ByLocator(AppiumBy.id(findBy.id()), key, findBy.id());
+        }
+        By recommended = ConfigManager.isFastLocatorsEnabled() ? LocatorProfiler.getRecommendedBy(key) : null;
+        return recommended != null ? new ByLocator(recommended, key, null) : null;
+    }
+
+    private class ByLocator implements ElementLocator {
+        private final By by;
+        private final String key;
+        private final String profiledResourceId;
+
+        private ByLocator(By by, String key, String profiledResourceId) {
+            this.by = by;
+            this.key = key;
+            this.profiledResourceId = profiledResourceId;
+        }
+
+        @Override
+        public WebElement findElement() {
+            WebElement element = driver.findElement(by);
+            if (profiledResourceId != null) {
+                LocatorProfiler.profileOnce(driver, key, profiledResourceId, element);
+            }
+            return element;
+        }
+
+        @Override
+        public List<WebElement> findElements() {
+            return driver.findElements(by);
+        }
+
+        @Override
+        public String toString() {
+            return key + " -> " + by;
+        }
+    }
+}
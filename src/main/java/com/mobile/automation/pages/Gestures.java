@@ -0,0 +1,251 @@
+package com.mobile.automation.pages;
+
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.utils.TraceRecorder;
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.interactions.Pause;
+import org.openqa.selenium.interactions.PointerInput;
+import org.openqa.selenium.interactions.Sequence;
+import org.openqa.selenium.remote.RemoteWebElement;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Touch gestures built as complete W3C Actions sequences and sent in a single request each
+ * Finger paths are computed up front (eased for flings, linear for drags), so a gesture costs one round trip
+ * however many points it has; multi-finger gestures put one pointer sequence per finger into the same request
+ * Scrolling to an element uses the server-side mobile: scrollGesture, one request per scroll step
+ */
+public final class Gestures {
+    // Interval between precomputed points, roughly one per display frame
+    private static final long FRAME_MILLIS = 16;
+    private static final int MAX_POINTS = 40;
+    private static final DoubleUnaryOperator LINEAR = t -> t;
+    private static final DoubleUnaryOperator EASE_OUT = t -> 1 - Math.pow(1 - t, 3);
+
+    private final AppiumDriver driver;
+    private Dimension screenSize;
+
+    /**
+     * Direction the content moves into view from, as in mobile: scrollGesture
+     * DOWN reveals content below, so the finger moves up
+     */
+    public enum Direction {
+        UP, DOWN, LEFT, RIGHT
+    }
+
+    /**
+     * Create gestures for a session
+     * @param driver Driver of the session
+     */
+    public Gestures(AppiumDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Fast swipe that lets the content keep scrolling after the finger lifts
+     * @param direction Direction to scroll
+     */
+    public void fling(Direction direction) {
+        Point[] ends = endpoints(screenArea(), direction, 0.7);
+        perform("fling", Collections.singletonList(path(ends[0], ends[1], Duration.ofMillis(120), EASE_OUT)),
+                Duration.ofMillis(120), Duration.ZERO);
+    }
+
+    /**
+     * Drag that stops with the finger, scrolling by a fraction of the screen
+     * @param direction Direction to scroll
+     * @param fraction Share of the screen to scroll, between 0 and 1
+     */
+    public void scroll(Direction direction, double fraction) {
+        Point[] ends = endpoints(screenArea(), direction, fraction);
+        swipe(ends[0], ends[1], Duration.ofMillis(600));
+    }
+
+    /**
+     * One-finger drag along a straight line; the finger rests at the end before lifting so no fling follows
+     * @param from Start point
+     * @param to End point
+     * @param duration Duration of the movement
+     */
+    public void swipe(Point from, Point to, Duration duration) {
+        perform("swipe", Collections.singletonList(path(from, to, duration, LINEAR)), duration, Duration.ofMillis(100));
+    }
+
+    /**
+     * Two-finger pinch around a point
+     * @param center Point between the fingers
+     * @param startDistance Distance between the fingers at the start, in pixels
+     * @param endDistance Distance between the fingers at the end; larger than startDistance zooms in
+     * @param duration Duration of the movement
+     */
+    public void pinch(Point center, int startDistance, int endDistance, Duration duration) {
+        List<List<Point>> fingers = new ArrayList<>();
+        for (int side : new int[] {-1, 1}) {
+            Point from = new Point(center.getX() + side * startDistance / 2, center.getY());
+            Point to = new Point(center.getX() + side * endDistance / 2, center.getY());
+            fingers.add(path(from, to, duration, LINEAR));
+        }
+        perform("pinch", fingers, duration, Duration.ZERO);
+    }
+
+    /**
+     * Several fingers moving together along parallel lines, e.g. a three-finger swipe
+     * @param fingers Number of fingers
+     * @param direction Direction to scroll
+     * @param duration Duration of the movement
+     */
+    public void multiFingerSwipe(int fingers, Direction direction, Duration duration) {
+        Rectangle area = screenArea();
+        Point[] ends = endpoints(area, direction, 0.5);
+        boolean vertical = direction == Direction.UP || direction == Direction.DOWN;
+        int spacing = (vertical ? area.getWidth() : area.getHeight()) / (fingers + 1);
+        List<List<Point>> paths = new ArrayList<>();
+        for (int finger = 0; finger < fingers; finger++) {
+            // Spread the fingers across the axis the gesture does not move along
+            int offset = (finger + 1) * spacing - (vertical ? area.getWidth() : area.getHeight()) / 2;
+            Point from = vertical ? ends[0].moveBy(offset, 0) : ends[0].moveBy(0, offset);
+            Point to = vertical ? ends[1].moveBy(offset, 0) : ends[1].moveBy(0, offset);
+            paths.add(path(from, to, duration, LINEAR));
+        }
+        perform("multiFingerSwipe", paths, duration, Duration.ofMillis(100));
+    }
+
+    /**
+     * Scroll with mobile: scrollGesture until an element is on screen
+     * @param target Locator of the element
+     * @param container Scrollable element to scroll, or null to scroll the middle of the screen
+     * @param direction Direction to scroll
+     * @param maxScrolls Scroll steps to try before giving up
+     * @return the element once found
+     */
+    public WebElement scrollUntilVisible(By target, WebElement container, Direction direction, int maxScrolls) {
+        try (TraceRecorder.Span ignored = TraceRecorder.begin("scrollUntilVisible", "page", target)) {
+            // A missing element must not block each check for the implicit wait
+            driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+            boolean canScroll = true;
+            for (int scrolls = 0; ; scrolls++) {
+                List<WebElement> found = driver.findElements(target);
+                if (!found.isEmpty()) {
+                    return found.get(0);
+                }
+                if (!canScroll || scrolls == maxScrolls) {
+                    throw new RuntimeException("Element " + target + " not found after " + scrolls + " scrolls " + direction);
+                }
+                canScroll = scrollGesture(container, direction);
+            }
+        } finally {
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(ConfigManager.getImplicitWait()));
+        }
+    }
+
+    /**
+     * Scroll one step on the server
+     * @return true when the content can scroll further in that direction
+     */
+    private boolean scrollGesture(WebElement container, Direction direction) {
+        Map<String, Object> arguments = new HashMap<>();
+        // Generated and PageFactory elements wrap the element the server knows
+        if (container instanceof WrapsElement) {
+            container = ((WrapsElement) container).getWrappedElement();
+        }
+        if (container instanceof RemoteWebElement) {
+            arguments.put("elementId", ((RemoteWebElement) container).getId());
+        } else {
+            Rectangle area = screenArea();
+            arguments.put("left", area.getX());
+            arguments.put("top", area.getY());
+            arguments.put("width", area.getWidth());
+            arguments.put("height", area.getHeight());
+        }
+        arguments.put("direction", direction.name().toLowerCase());
+        arguments.put("percent", 0.75);
+        return Boolean.TRUE.equals(driver.executeScript("mobile: scrollGesture", arguments));
+    }
+
+    /**
+     * Send one pointer sequence per finger path in a single request
+     */
+    private void perform(String name, List<List<Point>> fingers, Duration duration, Duration hold) {
+        try (TraceRecorder.Span ignored = TraceRecorder.begin(name, "page", fingers.size() + " finger(s)")) {
+            List<Sequence> sequences = new ArrayList<>();
+            for (int i = 0; i < fingers.size(); i++) {
+                List<Point> points = fingers.get(i);
+                PointerInput finger = new PointerInput(PointerInput.Kind.TOUCH, "finger" + (i + 1));
+                Sequence sequence = new Sequence(finger, 0);
+                Point start = points.get(0);
+                sequence.addAction(finger.createPointerMove(Duration.ZERO, PointerInput.Origin.viewport(), start.getX(), start.getY()));
+                sequence.addAction(finger.createPointerDown(PointerInput.MouseButton.LEFT.asArg()));
+                Duration step = duration.dividedBy(Math.max(1, points.size() - 1));
+                for (Point point : points.subList(1, points.size())) {
+                    sequence.addAction(finger.createPointerMove(step, PointerInput.Origin.viewport(), point.getX(), point.getY()));
+                }
+                if (!hold.isZero()) {
+                    sequence.addAction(new Pause(finger, hold));
+                }
+                sequence.addAction(finger.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+                sequences.add(sequence);
+            }
+            driver.perform(sequences);
+        }
+    }
+
+    /**
+     * Precompute the points of a finger path, one per frame of its duration
+     * @param easing Maps elapsed share of time to covered share of distance
+     */
+    static List<Point> path(Point from, Point to, Duration duration, DoubleUnaryOperator easing) {
+        int segments = (int) Math.max(1, Math.min(MAX_POINTS - 1, duration.toMillis() / FRAME_MILLIS));
+        List<Point> points = new ArrayList<>(segments + 1);
+        for (int i = 0; i <= segments; i++) {
+            double progress = easing.applyAsDouble(i / (double) segments);
+            points.add(new Point((int) Math.round(from.getX() + (to.getX() - from.getX()) * progress),
+                    (int) Math.round(from.getY() + (to.getY() - from.getY()) * progress)));
+        }
+        return points;
+    }
+
+    /**
+     * Start and end of a finger movement that scrolls content in a direction by a fraction of an area
+     */
+    private static Point[] endpoints(Rectangle area, Direction direction, double fraction) {
+        int centerX = area.getX() + area.getWidth() / 2;
+        int centerY = area.getY() + area.getHeight() / 2;
+        int dx = (int) (area.getWidth() * fraction / 2);
+        int dy = (int) (area.getHeight() * fraction / 2);
+        switch (direction) {
+            case DOWN:
+                return new Point[] {new Point(centerX, centerY + dy), new Point(centerX, centerY - dy)};
+            case UP:
+                return new Point[] {new Point(centerX, centerY - dy), new Point(centerX, centerY + dy)};
+            case RIGHT:
+                return new Point[] {new Point(centerX + dx, centerY), new Point(centerX - dx, centerY)};
+            default:
+                return new Point[] {new Point(centerX - dx, centerY), new Point(centerX + dx, centerY)};
+        }
+    }
+
+    /**
+     * Middle of the screen, clear of the status and navigation bars
+     */
+    private Rectangle screenArea() {
+        if (screenSize == null) {
+            screenSize = driver.manage().window().getSize();
+        }
+        int marginX = screenSize.getWidth() / 10;
+        int marginY = screenSize.getHeight() / 5;
+        return new Rectangle(marginX, marginY, screenSize.getHeight() - 2 * marginY, screenSize.getWidth() - 2 * marginX);
+    }
+}
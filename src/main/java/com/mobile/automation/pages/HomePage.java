@@ -1,5 +1,6 @@
 package com.mobile.automation.pages;
 
+import com.mobile.automation.utils.PerformanceSampler;
 import io.appium.java_client.pagefactory.AndroidFindBy;
 import org.openqa.selenium.WebElement;
 import org.testng.Assert;
@@ -8,10 +9,15 @@ import org.testng.Assert;
  * Home Page Object class representing the login screen (first screen of the app which has title as qatestapp)
  * Contains elements and methods specific to the login page
  */
+@NavigationShortcut(state = HomePage.PHONE_ENTRY, activity = "com.truecaller.wizard.TruecallerWizard",
+        verify = "countryListButton", fallback = "clickGetStartedButton")
+@UiAutomatorSettings(waitForIdleTimeout = 1000, ignoreUnimportantViews = true)
 public class HomePage extends BasePage {
 
+    public static final String PHONE_ENTRY = "phoneEntry";
+
     @AndroidFindBy(id = "com.truecaller:id/wizardLogo")
-    private WebElement logo;
+    WebElement logo;
 
     @AndroidFindBy(id = "com.truecaller:id/nextButton")
     public WebElement getStartedButton;
@@ -53,45 +59,47 @@ public class HomePage extends BasePage {
 
     public void setCountryAndPhoneNumber(String country, String phoneNumber){
 
-        countryListButton.click();
+        PerformanceSampler.markStep("Country search");
+        awaitTransition(countryListButton::click);
         magnifier.click();
-        searchFieldBar.sendKeys(country);
+        enterText(searchFieldBar, country);
         String searchBarText = searchFieldBar.getText();
         logger.info("Successfully took the text {} from search bar", searchBarText);
 
-        countryText.click();
+        awaitTransition(countryText::click);
+        PerformanceSampler.markStep("Phone number entry");
         safeSendKeys(phoneField, phoneNumber);
-        verifyNumberButton.click();
+        awaitTransition(verifyNumberButton::click);
 
     }
 
     public void editPhoneNumber(String country, String phoneNumber){
 
-        countryListButton.click();
+        awaitTransition(countryListButton::click);
         magnifier.click();
-        searchFieldBar.sendKeys(country);
+        enterText(searchFieldBar, country);
         String searchBarText = searchFieldBar.getText();
         logger.info("successfully took the text {} from search bar", searchBarText);
 
-        countryText.click();
+        awaitTransition(countryText::click);
         safeSendKeys(phoneField, phoneNumber);
 
-        verifyNumberButton.click();
+        awaitTransition(verifyNumberButton::click);
 
     }
 
     public void setIncorrectCountryAndPhoneNumber(String country, String incorrectPhoneNumberphoneNumber){
 
-        countryListButton.click();
+        awaitTransition(countryListButton::click);
         magnifier.click();
-        searchFieldBar.sendKeys(country);
+        enterText(searchFieldBar, country);
         String searchBarText = searchFieldBar.getText();
         logger.info("succesfully took the text {} from search bar", searchBarText);
 
-        countryText.click();
+        awaitTransition(countryText::click);
         safeSendKeys(phoneField, incorrectPhoneNumberphoneNumber);
-        verifyNumberButton.click();
-        confirmPhoneNumberButton.click();
+        awaitTransition(verifyNumberButton::click);
+        awaitTransition(confirmPhoneNumberButton::click);
 
 
     }
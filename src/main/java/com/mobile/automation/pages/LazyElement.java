@@ -0,0 +1,175 @@
+package com.mobile.automation.pages;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+
+import java.util.List;
+
+/**
+ * WebElement bound to a locator and found on use, like the proxies PageFactory creates, but as a plain class
+ * Each call looks the element up again unless the field is marked @CacheLookup
+ */
+public final class LazyElement implements WebElement, WrapsElement {
+    private final SearchContext context;
+    private final String key;
+    private final String page;
+    private final By by;
+    private final boolean cacheLookup;
+    private WebElement cached;
+
+    /**
+     * Create an element bound to a locator
+     * @param context Driver or element to find the element from
+     * @param key Element key as "PageClass.field"
+     * @param by Locator
+     * @param cacheLookup true to keep the element after the first lookup
+     */
+    public LazyElement(SearchContext context, String key, By by, boolean cacheLookup) {
+        this.context = context;
+        this.key = key;
+        this.page = key.substring(0, Math.max(0, key.lastIndexOf('.')));
+        this.by = by;
+        this.cacheLookup = cacheLookup;
+    }
+
+    @Override
+    public WebElement getWrappedElement() {
+        if (!cacheLookup) {
+            return find();
+        }
+        if (cached == null) {
+            cached = find();
+        }
+        return cached;
+    }
+
+    private WebElement find() {
+        long start = System.nanoTime();
+        try {
+            return context.findElement(by);
+        } finally {
+            PageSettings.recordFind(page, start);
+        }
+    }
+
+    @Override
+    public void click() {
+        getWrappedElement().click();
+    }
+
+    @Override
+    public void submit() {
+        getWrappedElement().submit();
+    }
+
+    @Override
+    public void sendKeys(CharSequence... keysToSend) {
+        getWrappedElement().sendKeys(keysToSend);
+    }
+
+    @Override
+    public void clear() {
+        getWrappedElement().clear();
+    }
+
+    @Override
+    public String getTagName() {
+        return getWrappedElement().getTagName();
+    }
+
+    @Override
+    public String getDomProperty(String name) {
+        return getWrappedElement().getDomProperty(name);
+    }
+
+    @Override
+    public String getDomAttribute(String name) {
+        return getWrappedElement().getDomAttribute(name);
+    }
+
+    @Override
+    public String getAttribute(String name) {
+        return getWrappedElement().getAttribute(name);
+    }
+
+    @Override
+    public String getAriaRole() {
+        return getWrappedElement().getAriaRole();
+    }
+
+    @Override
+    public String getAccessibleName() {
+        return getWrappedElement().getAccessibleName();
+    }
+
+    @Override
+    public boolean isSelected() {
+        return getWrappedElement().isSelected();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return getWrappedElement().isEnabled();
+    }
+
+    @Override
+    public String getText() {
+        return getWrappedElement().getText();
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        return getWrappedElement().findElements(by);
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        return getWrappedElement().findElement(by);
+    }
+
+    @Override
+    public SearchContext getShadowRoot() {
+        return getWrappedElement().getShadowRoot();
+    }
+
+    @Override
+    public boolean isDisplayed() {
+        return getWrappedElement().isDisplayed();
+    }
+
+    @Override
+    public Point getLocation() {
+        return getWrappedElement().getLocation();
+    }
+
+    @Override
+    public Dimension getSize() {
+        return getWrappedElement().getSize();
+    }
+
+    @Override
+    public Rectangle getRect() {
+        return getWrappedElement().getRect();
+    }
+
+    @Override
+    public String getCssValue(String propertyName) {
+        return getWrappedElement().getCssValue(propertyName);
+    }
+
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target) {
+        return getWrappedElement().getScreenshotAs(target);
+    }
+
+    @Override
+    public String toString() {
+        return key + " -> " + by;
+    }
+}
@@ -0,0 +1,206 @@
+package com.mobile.automation.pages;
+
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.utils.DriverCassette;
+import io.appium.java_client.AppiumBy;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times equivalent locator strategies for @AndroidFindBy(id = ...) elements and recommends the fastest one
+ * Profiling runs when locator.profile=true, once per element per run, right after the element was found
+ * Recommendations are written to the cache directory and picked up by FastLocatorFieldDecorator on later runs
+ */
+public class LocatorProfiler {
+    private static final Logger logger = LoggerFactory.getLogger(LocatorProfiler.class);
+    private static final String RECOMMENDATIONS_FILE = "locator-recommendations.properties";
+    private static final String PROFILE_REPORT_FILE = "locator-profile.csv";
+    private static final int SAMPLES_PER_STRATEGY = 3;
+
+    private static final Map<String, List<Measurement>> profiles = new ConcurrentHashMap<>();
+    private static Properties recommendations;
+
+    /**
+     * Time every equivalent strategy for an element once per run
+     * @param driver Driver the element was found with
+     * @param key Element key as "PageClass.field"
+     * @param resourceId Resource id from the @AndroidFindBy annotation
+     * @param reference Element found with the declared locator, used to check candidates find the same element
+     */
+    public static void profileOnce(WebDriver driver, String key, String resourceId, WebElement reference) {
+        if (profiles.putIfAbsent(key, new ArrayList<>()) != null) {
+            return;
+        }
+        driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+        try {
+            Rectangle referenceRect = reference.getRect();
+            List<Measurement> measurements = new ArrayList<>();
+            for (Map.Entry<String, String> candidate : getCandidates(resourceId, reference).entrySet()) {
+                Measurement measurement = measure(driver, candidate.getKey(), candidate.getValue(), referenceRect);
+                if (measurement != null) {
+                    measurements.add(measurement);
+                }
+            }
+            measurements.sort(Comparator.comparingDouble(m -> m.medianMillis));
+            profiles.put(key, measurements);
+            if (!measurements.isEmpty()) {
+                logger.info("Locator profile for {}: fastest is {} ({} ms)", key, measurements.get(0).strategy,
+                        String.format("%.1f", measurements.get(0).medianMillis));
+            }
+        } catch (Exception e) {
+            logger.warn("Could not profile locators for {}: {}", key, e.getMessage());
+        } finally {
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(ConfigManager.getImplicitWait()));
+        }
+    }
+
+    /**
+     * Get the recommended locator for an element from previous profiling runs
+     * @param key Element key as "PageClass.field"
+     * @return By for the fastest measured strategy, or null when there is no recommendation or a cassette is active
+     */
+    public static By getRecommendedBy(String key) {
+        if (DriverCassette.isActive()) {
+            return null;
+        }
+        String value = getRecommendations().getProperty(key);
+        if (value == null) {
+            return null;
+        }
+        int separator = value.indexOf('|');
+        return toBy(value.substring(0, separator), value.substring(separator + 1));
+    }
+
+    /**
+     * Rank the strategies profiled in this run and write the recommendation and report files
+     * Recommendations for elements not profiled in this run are kept
+     */
+    public static synchronized void writeRecommendations() {
+        if (profiles.isEmpty()) {
+            return;
+        }
+        File cacheDir = new File(ConfigManager.getCacheDir());
+        cacheDir.mkdirs();
+        Properties current = getRecommendations();
+        try (PrintWriter report = new PrintWriter(new File(cacheDir, PROFILE_REPORT_FILE))) {
+            report.println("element,rank,strategy,selector,medianMillis");
+            for (Map.Entry<String, List<Measurement>> profile : profiles.entrySet()) {
+                List<Measurement> ranked = profile.getValue();
+                for (int i = 0; i < ranked.size(); i++) {
+                    Measurement m = ranked.get(i);
+                    report.printf("%s,%d,%s,\"%s\",%.1f%n", profile.getKey(), i + 1, m.strategy,
+                            m.selector.replace("\"", "\"\""), m.medianMillis);
+                }
+                if (!ranked.isEmpty()) {
+                    current.setProperty(profile.getKey(), ranked.get(0).strategy + "|" + ranked.get(0).selector);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write locator profile report", e);
+        }
+        try (FileOutputStream fos = new FileOutputStream(new File(cacheDir, RECOMMENDATIONS_FILE))) {
+            current.store(fos, "Fastest measured locator per element (strategy|selector)");
+            logger.info("Locator recommendations written for {} elements", profiles.size());
+        } catch (IOException e) {
+            logger.warn("Could not write locator recommendations", e);
+        }
+    }
+
+    private static Map<String, String> getCandidates(String resourceId, WebElement reference) {
+        Map<String, String> candidates = new LinkedHashMap<>();
+        candidates.put("id", resourceId);
+        candidates.put("uiautomator", "new UiSelector().resourceId(" + toJavaString(resourceId) + ")");
+        candidates.put("xpath", "//*[@resource-id='" + resourceId + "']");
+        String contentDescription = reference.getAttribute("content-desc");
+        if (contentDescription != null && !contentDescription.isEmpty() && !"null".equals(contentDescription)) {
+            candidates.put("accessibilityId", contentDescription);
+        }
+        return candidates;
+    }
+
+    /**
+     * Quote a value as a Java string literal for a UiSelector expression
+     */
+    private static String toJavaString(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static Measurement measure(SearchContext context, String strategy, String selector, Rectangle referenceRect) {
+        By by = toBy(strategy, selector);
+        long[] samples = new long[SAMPLES_PER_STRATEGY];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            List<WebElement> found = context.findElements(by);
+            samples[i] = System.nanoTime() - start;
+            if (found.isEmpty() || !Objects.equals(found.get(0).getRect(), referenceRect)) {
+                logger.debug("Strategy {} '{}' does not find the same element, skipping", strategy, selector);
+                return null;
+            }
+        }
+        Arrays.sort(samples);
+        return new Measurement(strategy, selector, samples[samples.length / 2] / 1_000_000.0);
+    }
+
+    private static By toBy(String strategy, String selector) {
+        switch (strategy) {
+            case "id":
+                return AppiumBy.id(selector);
+            case "uiautomator":
+                return AppiumBy.androidUIAutomator(selector);
+            case "xpath":
+                return AppiumBy.xpath(selector);
+            case "accessibilityId":
+                return AppiumBy.accessibilityId(selector);
+            default:
+                throw new IllegalArgumentException("Unknown locator strategy: " + strategy);
+        }
+    }
+
+    private static synchronized Properties getRecommendations() {
+        if (recommendations == null) {
+            recommendations = new Properties();
+            File file = new File(ConfigManager.getCacheDir(), RECOMMENDATIONS_FILE);
+            if (file.exists()) {
+                try (FileInputStream fis = new FileInputStream(file)) {
+                    recommendations.load(fis);
+                } catch (IOException e) {
+                    logger.warn("Could not load locator recommendations", e);
+                }
+            }
+        }
+        return recommendations;
+    }
+
+    private static class Measurement {
+        private final String strategy;
+        private final String selector;
+        private final double medianMillis;
+
+        private Measurement(String strategy, String selector, double medianMillis) {
+            this.strategy = strategy;
+            this.selector = selector;
+            this.medianMillis = medianMillis;
+        }
+    }
+}
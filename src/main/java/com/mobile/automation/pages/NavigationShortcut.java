@@ -0,0 +1,64 @@
+package com.mobile.automation.pages;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how a page object can be reached directly in a given state, skipping the UI flow that normally leads there
+ * Exactly one of activity, deepLink or checkpoint should be set
+ * Used by NavigationShortcutRegistry
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Repeatable(NavigationShortcut.List.class)
+public @interface NavigationShortcut {
+
+    /**
+     * Name of the page state this shortcut leads to, e.g. "phoneEntry"
+     */
+    String state();
+
+    /**
+     * Activity to launch with am start, fully qualified or relative to the app package
+     */
+    String activity() default "";
+
+    /**
+     * String extras passed to the activity as "key=value" pairs
+     */
+    String[] extras() default {};
+
+    /**
+     * Deep link URI to open
+     */
+    String deepLink() default "";
+
+    /**
+     * Name of an app data checkpoint to restore through run-as before launching the app
+     */
+    String checkpoint() default "";
+
+    /**
+     * Name of a WebElement field that must be displayed once the state is reached
+     * When empty, isPageLoaded() is used
+     */
+    String verify() default "";
+
+    /**
+     * Name of a no-argument page method that reaches the state through the UI
+     * Used when the shortcut is not available or failed verification for the installed app version
+     */
+    String fallback() default "";
+
+    /**
+     * Container for repeated NavigationShortcut annotations
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    @interface List {
+        NavigationShortcut[] value();
+    }
+}
@@ -0,0 +1,204 @@
+package com.mobile.automation.pages;
+
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.utils.DeviceUtils;
+import com.mobile.automation.utils.DriverCassette;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Properties;
+
+/**
+ * Registry of navigation shortcuts declared on page objects with @NavigationShortcut
+ * A shortcut is verified the first time it is used for an installed app version and the outcome is cached,
+ * so later runs either jump straight to the state or go directly to the UI fallback
+ */
+public class NavigationShortcutRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(NavigationShortcutRegistry.class);
+    private static final String CACHE_FILE = "navigation-shortcuts.properties";
+    private static final String VERIFIED = "verified";
+    private static final String BROKEN = "broken";
+
+    private static Properties cache;
+    private static String appVersion;
+
+    /**
+     * Bring the app to the given state of a page and return the page object
+     * @param pageClass Page object class declaring the shortcut
+     * @param state Name of the state, as declared in @NavigationShortcut
+     * @return page object for the reached state
+     */
+    public static <T extends BasePage> T navigateTo(Class<T> pageClass, String state) {
+        NavigationShortcut shortcut = findShortcut(pageClass, state);
+        String version = getAppVersion();
+        String key = version + "|" + pageClass.getSimpleName() + "|" + state;
+        // Cassette runs must send the same commands whatever an earlier run cached, and a status cached for an
+        // unknown version could belong to any build, so both always verify and store nothing
+        boolean useCache = !DriverCassette.isActive() && !DeviceUtils.UNKNOWN_VERSION.equals(version);
+        String status = useCache ? getCache().getProperty(key) : null;
+
+        if (!BROKEN.equals(status)) {
+            try {
+                applyShortcut(shortcut);
+                T page = createPage(pageClass);
+                if (VERIFIED.equals(status)) {
+                    logger.info("Reached {} at {} through cached shortcut", pageClass.getSimpleName(), state);
+                    return page;
+                }
+                if (isStateReached(page, shortcut)) {
+                    logger.info("Shortcut to {} at {} verified for app version {}", pageClass.getSimpleName(), state, version);
+                    if (useCache) {
+                        storeStatus(key, VERIFIED);
+                    }
+                    return page;
+                }
+                logger.warn("Shortcut to {} at {} did not reach the expected screen", pageClass.getSimpleName(), state);
+            } catch (Exception e) {
+                logger.warn("Shortcut to {} at {} failed: {}", pageClass.getSimpleName(), state, e.getMessage());
+            }
+            if (useCache) {
+                storeStatus(key, BROKEN);
+            }
+            DeviceUtils.startApp();
+        }
+
+        return navigateByFallback(pageClass, shortcut);
+    }
+
+    /**
+     * Save the current app data as a checkpoint that shortcuts can restore
+     * @param name Checkpoint name, as referenced by @NavigationShortcut(checkpoint = ...)
+     */
+    public static void saveCheckpoint(String name) {
+        DeviceUtils.saveAppCheckpoint(getCheckpointFile(name));
+    }
+
+    /**
+     * Forget all cached verification results, e.g. after changing a shortcut declaration
+     */
+    public static synchronized void clearCache() {
+        getCache().clear();
+        saveCache();
+    }
+
+    private static NavigationShortcut findShortcut(Class<?> pageClass, String state) {
+        for (NavigationShortcut shortcut : pageClass.getAnnotationsByType(NavigationShortcut.class)) {
+            if (shortcut.state().equals(state)) {
+                return shortcut;
+            }
+        }
+        throw new IllegalArgumentException("No navigation shortcut for state '" + state + "' on " + pageClass.getSimpleName());
+    }
+
+    private static void applyShortcut(NavigationShortcut shortcut) {
+        if (!shortcut.checkpoint().isEmpty()) {
+            DeviceUtils.restoreAppCheckpoint(getCheckpointFile(shortcut.checkpoint()));
+        }
+        if (!shortcut.deepLink().isEmpty()) {
+            DeviceUtils.openDeepLink(shortcut.deepLink());
+        } else if (!shortcut.activity().isEmpty()) {
+            DeviceUtils.launchActivity(shortcut.activity(), shortcut.extras());
+        } else if (!shortcut.checkpoint().isEmpty()) {
+            DeviceUtils.startApp();
+        } else {
+            throw new IllegalStateException("Shortcut for state '" + shortcut.state() + "' declares no target");
+        }
+    }
+
+    private static boolean isStateReached(BasePage page, NavigationShortcut shortcut) throws ReflectiveOperationException {
+        if (shortcut.verify().isEmpty()) {
+            return page.isPageLoaded();
+        }
+        Field field = findField(page.getClass(), shortcut.verify());
+        field.setAccessible(true);
+        return page.isElementDisplayed((WebElement) field.get(page));
+    }
+
+    private static <T extends BasePage> T navigateByFallback(Class<T> pageClass, NavigationShortcut shortcut) {
+        if (shortcut.fallback().isEmpty()) {
+            throw new RuntimeException("Shortcut to " + pageClass.getSimpleName() + " at " + shortcut.state()
+                    + " is not available and no fallback is declared");
+        }
+        try {
+            T page = createPage(pageClass);
+            Method method = pageClass.getMethod(shortcut.fallback());
+            method.invoke(page);
+            logger.info("Reached {} at {} through UI fallback {}()", pageClass.getSimpleName(), shortcut.state(), shortcut.fallback());
+            return page;
+        } catch (ReflectiveOperationException e) {
+            logger.error("Fallback {}() failed for {}", shortcut.fallback(), pageClass.getSimpleName(), e);
+            throw new RuntimeException("Failed to navigate to " + pageClass.getSimpleName() + " at " + shortcut.state(), e);
+        }
+    }
+
+    private static <T extends BasePage> T createPage(Class<T> pageClass) {
+        try {
+            return pageClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Failed to create page object " + pageClass.getSimpleName(), e);
+        }
+    }
+
+    private static Field findField(Class<?> type, String name) throws NoSuchFieldException {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                return current.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                // keep looking in the superclass
+            }
+        }
+        throw new NoSuchFieldException(name + " on " + type.getSimpleName());
+    }
+
+    private static File getCheckpointFile(String name) {
+        return new File(ConfigManager.getCacheDir(), "checkpoints" + File.separator + name + ".tar");
+    }
+
+    private static synchronized String getAppVersion() {
+        // Read per navigation in cassette runs, so every recorded test contains the query, and again after a failed
+        // lookup
+        if (appVersion == null || DriverCassette.isActive()) {
+            String version = DeviceUtils.getInstalledAppVersion();
+            appVersion = DeviceUtils.UNKNOWN_VERSION.equals(version) ? null : version;
+            return version;
+        }
+        return appVersion;
+    }
+
+    private static synchronized Properties getCache() {
+        if (cache == null) {
+            cache = new Properties();
+            File cacheFile = new File(ConfigManager.getCacheDir(), CACHE_FILE);
+            if (cacheFile.exists()) {
+                try (FileInputStream fis = new FileInputStream(cacheFile)) {
+                    cache.load(fis);
+                } catch (IOException e) {
+                    logger.warn("Could not load navigation shortcut cache, starting empty", e);
+                }
+            }
+        }
+        return cache;
+    }
+
+    private static synchronized void storeStatus(String key, String status) {
+        getCache().setProperty(key, status);
+        saveCache();
+    }
+
+    private static synchronized void saveCache() {
+        File cacheFile = new File(ConfigManager.getCacheDir(), CACHE_FILE);
+        cacheFile.getParentFile().mkdirs();
+        try (FileOutputStream fos = new FileOutputStream(cacheFile)) {
+            cache.store(fos, "Navigation shortcut verification per app version");
+        } catch (IOException e) {
+            logger.warn("Could not save navigation shortcut cache", e);
+        }
+    }
+}
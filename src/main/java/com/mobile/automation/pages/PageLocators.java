@@ -0,0 +1,74 @@
+package com.mobile.automation.pages;
+
+import com.mobile.automation.config.ConfigManager;
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binds the @AndroidFindBy fields of a page object to LazyElements without reflection or proxies
+ * Implementations named PageClass_Locators are generated at build time by PageLocatorProcessor;
+ * pages the processor could not handle have none and are initialized by PageFactory as before
+ * @param <T> Page object type
+ */
+public interface PageLocators<T> {
+
+    /**
+     * Assign every @AndroidFindBy field of a page
+     * @param page Page object to initialize
+     * @param context Driver or element to find the elements from
+     */
+    void bind(T page, SearchContext context);
+
+    /**
+     * Get the generated locators of a page class; the class is looked up once and cached
+     * @param pageClass Page object class
+     * @return generated PageLocators, or null when the page has none
+     */
+    static PageLocators<?> forPage(Class<?> pageClass) {
+        return Registry.BINDERS.computeIfAbsent(pageClass, Registry::load).orElse(null);
+    }
+
+    /**
+     * Get the locator to use for an @AndroidFindBy(id = ...) field, preferring the fastest one measured by LocatorProfiler
+     * @param key Element key as "PageClass.field"
+     * @param declared Locator declared on the field
+     * @return By to find the element with
+     */
+    static By locate(String key, By declared) {
+        By recommended = ConfigManager.isFastLocatorsEnabled() ? LocatorProfiler.getRecommendedBy(key) : null;
+        return recommended != null ? recommended : declared;
+    }
+
+    /**
+     * Cache of generated locator classes per page class
+     */
+    final class Registry {
+        private static final Logger logger = LoggerFactory.getLogger(PageLocators.class);
+        private static final Map<Class<?>, Optional<PageLocators<?>>> BINDERS = new ConcurrentHashMap<>();
+
+        private Registry() {
+        }
+
+        private static Optional<PageLocators<?>> load(Class<?> pageClass) {
+            String name = pageClass.getPackage().getName() + "."
+                    + pageClass.getName().substring(pageClass.getPackage().getName().length() + 1).replace('$', '_')
+                    + "_Locators";
+            try {
+                Class<?> locatorsClass = Class.forName(name, true, pageClass.getClassLoader());
+                return Optional.of((PageLocators<?>) locatorsClass.getDeclaredConstructor().newInstance());
+            } catch (ClassNotFoundException e) {
+                logger.debug("No generated locators for {}, using PageFactory", pageClass.getName());
+                return Optional.empty();
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Could not load generated locators {}, using PageFactory", name, e);
+                return Optional.empty();
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.mobile.automation.pages;
+
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.context.TestContext;
+import com.mobile.automation.utils.SampleStatistics;
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.HasSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Applies the @UiAutomatorSettings profile of a page object when it becomes active and records find and page
+ * source latency per page, so the effect of a profile can be compared between runs
+ * The settings of each session are cached in its TestContext; only settings that differ from it are sent
+ */
+public final class PageSettings {
+    private static final Logger logger = LoggerFactory.getLogger(PageSettings.class);
+    private static final Map<Class<?>, Map<String, Object>> profiles = new ConcurrentHashMap<>();
+    private static final Map<String, Latencies> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * Settings last sent to a session
+     */
+    private static final class SessionSettings {
+        private final String sessionId;
+        private final Map<String, Object> values;
+
+        private SessionSettings(String sessionId, Map<String, Object> values) {
+            this.sessionId = sessionId;
+            this.values = new HashMap<>(values);
+        }
+    }
+
+    /**
+     * Find and page source durations of one page, in milliseconds
+     */
+    private static final class Latencies {
+        private final Queue<Double> find = new ConcurrentLinkedQueue<>();
+        private final Queue<Double> pageSource = new ConcurrentLinkedQueue<>();
+    }
+
+    private PageSettings() {
+    }
+
+    /**
+     * Bring the session's settings in line with a page's profile
+     * @param driver Driver of the session
+     * @param page Page object class
+     */
+    public static void apply(AppiumDriver driver, Class<?> page) {
+        if (!ConfigManager.isPageSettingsEnabled() || !(driver instanceof HasSettings) || driver.getSessionId() == null) {
+            return;
+        }
+        HasSettings settings = (HasSettings) driver;
+        TestContext context = TestContext.current();
+        String sessionId = driver.getSessionId().toString();
+        SessionSettings current = context.get(SessionSettings.class);
+        if (current == null || !current.sessionId.equals(sessionId)) {
+            current = new SessionSettings(sessionId, settings.getSettings());
+            context.put(SessionSettings.class, current);
+        }
+
+        Map<String, Object> changes = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> setting : getProfile(page).entrySet()) {
+            // Numbers come back from the server as Long or Double, so compare the text
+            if (!String.valueOf(setting.getValue()).equals(String.valueOf(current.values.get(setting.getKey())))) {
+                changes.put(setting.getKey(), setting.getValue());
+            }
+        }
+        if (!changes.isEmpty()) {
+            settings.setSettings(changes);
+            current.values.putAll(changes);
+            logger.debug("Applied UiAutomator2 settings {} for {}", changes, page.getSimpleName());
+        }
+    }
+
+    /**
+     * Get the UiAutomator2 settings a page object declares, or the defaults when it declares none
+     * @param page Page object class
+     * @return setting name to value
+     */
+    static Map<String, Object> getProfile(Class<?> page) {
+        return profiles.computeIfAbsent(page, type -> {
+            UiAutomatorSettings annotation = type.getAnnotation(UiAutomatorSettings.class);
+            if (annotation == null) {
+                annotation = Defaults.class.getAnnotation(UiAutomatorSettings.class);
+            }
+            Map<String, Object> profile = new LinkedHashMap<>();
+            profile.put("waitForIdleTimeout", annotation.waitForIdleTimeout());
+            profile.put("waitForSelectorTimeout", annotation.waitForSelectorTimeout());
+            profile.put("ignoreUnimportantViews", annotation.ignoreUnimportantViews());
+            profile.put("allowInvisibleElements", annotation.allowInvisibleElements());
+            return profile;
+        });
+    }
+
+    /**
+     * Record how long an element lookup took
+     * @param page Page object class name
+     * @param startNanos System.nanoTime() before the lookup
+     */
+    public static void recordFind(String page, long startNanos) {
+        latencies.computeIfAbsent(page, name -> new Latencies()).find.add((System.nanoTime() - startNanos) / 1_000_000.0);
+    }
+
+    /**
+     * Record how long a page source read took
+     * @param page Page object class name
+     * @param startNanos System.nanoTime() before the read
+     */
+    public static void recordPageSource(String page, long startNanos) {
+        latencies.computeIfAbsent(page, name -> new Latencies()).pageSource.add((System.nanoTime() - startNanos) / 1_000_000.0);
+    }
+
+    /**
+     * Log find and page source latency per page together with the page's settings profile, then start new latencies
+     * so each suite run of a long-lived JVM is summarized on its own
+     */
+    public static void logSummary() {
+        Map<String, Latencies> summary = new TreeMap<>(latencies);
+        latencies.keySet().removeAll(summary.keySet());
+        for (Map.Entry<String, Latencies> page : summary.entrySet()) {
+            logger.info("{}: find {}, page source {}", page.getKey(),
+                    describe(page.getValue().find), describe(page.getValue().pageSource));
+        }
+        for (Map.Entry<Class<?>, Map<String, Object>> profile : profiles.entrySet()) {
+            logger.info("{} settings: {}", profile.getKey().getSimpleName(), profile.getValue());
+        }
+    }
+
+    private static String describe(Queue<Double> durations) {
+        if (durations.isEmpty()) {
+            return "n=0";
+        }
+        double[] values = durations.stream().mapToDouble(Double::doubleValue).toArray();
+        SampleStatistics statistics = new SampleStatistics(values);
+        return String.format("n=%d p50=%.0f ms p90=%.0f ms", statistics.getCount(), statistics.getMedian(),
+                statistics.getPercentile(90));
+    }
+
+    // Carries the annotation defaults for pages without @UiAutomatorSettings
+    @UiAutomatorSettings
+    private static final class Defaults {
+    }
+}
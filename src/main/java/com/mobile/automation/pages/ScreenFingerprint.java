@@ -0,0 +1,92 @@
+package com.mobile.automation.pages;
+
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.android.StartsActivity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Identity of the screen shown on the device: the foreground activity plus a hash of the shape of the view hierarchy
+ * Only element classes and resource ids are hashed, so typing, cursor blink, counters and scrolling do not change the
+ * fingerprint, while moving to another screen, fragment or dialog does
+ */
+public final class ScreenFingerprint {
+    // Opening tag names and resource ids of the page source, in document order
+    private static final Pattern STRUCTURE = Pattern.compile("<([A-Za-z][\\w.$]*)|\\sresource-id=\"([^\"]*)\"");
+
+    private final String activity;
+    private final long hierarchyHash;
+    private final int nodeCount;
+
+    private ScreenFingerprint(String activity, long hierarchyHash, int nodeCount) {
+        this.activity = activity;
+        this.hierarchyHash = hierarchyHash;
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * Fingerprint the screen currently shown by a session
+     * @param driver Driver of the session
+     * @return ScreenFingerprint of the current screen
+     */
+    public static ScreenFingerprint capture(AppiumDriver driver) {
+        String activity = driver instanceof StartsActivity ? ((StartsActivity) driver).currentActivity() : "";
+        return of(activity, driver.getPageSource());
+    }
+
+    /**
+     * Fingerprint a screen from its activity and page source
+     * @param activity Foreground activity
+     * @param pageSource Page source XML
+     * @return ScreenFingerprint of the screen
+     */
+    static ScreenFingerprint of(String activity, String pageSource) {
+        CRC32 crc = new CRC32();
+        int nodes = 0;
+        Matcher matcher = STRUCTURE.matcher(pageSource);
+        while (matcher.find()) {
+            String token;
+            if (matcher.group(1) != null) {
+                token = "<" + matcher.group(1);
+                nodes++;
+            } else {
+                token = "#" + matcher.group(2);
+            }
+            crc.update(token.getBytes(StandardCharsets.UTF_8));
+        }
+        return new ScreenFingerprint(activity != null ? activity : "", crc.getValue(), nodes);
+    }
+
+    /**
+     * Get the foreground activity of the screen
+     * @return activity name, empty when unknown
+     */
+    public String getActivity() {
+        return activity;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ScreenFingerprint)) {
+            return false;
+        }
+        ScreenFingerprint that = (ScreenFingerprint) other;
+        return hierarchyHash == that.hierarchyHash && nodeCount == that.nodeCount && activity.equals(that.activity);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * activity.hashCode() + Long.hashCode(hierarchyHash);
+    }
+
+    @Override
+    public String toString() {
+        return activity + "#" + Long.toHexString(hierarchyHash) + "/" + nodeCount;
+    }
+}
@@ -0,0 +1,156 @@
+package com.mobile.automation.pages;
+
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.utils.DriverCassette;
+import com.mobile.automation.utils.TraceRecorder;
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.android.CanReplaceElementValue;
+import io.appium.java_client.android.nativekey.AndroidKey;
+import io.appium.java_client.android.nativekey.KeyEvent;
+import io.appium.java_client.android.nativekey.PressesKey;
+import io.appium.java_client.clipboard.HasClipboard;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.remote.RemoteWebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Enters text into a field with the fastest method that works for it, instead of clear() plus per-character sendKeys
+ * Strategies are tried in the order of text.entry.strategies; the result is read back and the next strategy is
+ * tried when it does not match. The strategy that worked is tried first for the same field from then on
+ */
+public final class TextEntry {
+    private static final Logger logger = LoggerFactory.getLogger(TextEntry.class);
+    private static final Map<String, Strategy> preferred = new ConcurrentHashMap<>();
+
+    /**
+     * Ways to put text into a field
+     */
+    public enum Strategy {
+        // Set the whole value in one command (UiAutomator2 setText)
+        REPLACE,
+        // mobile: type, where the server supports it
+        TYPE,
+        // Set the clipboard and paste into the focused field; the clipboard keeps the text
+        PASTE,
+        // clear() and sendKeys(), the previous behaviour
+        SEND_KEYS
+    }
+
+    private TextEntry() {
+    }
+
+    /**
+     * Replace the text of a field
+     * @param driver Driver of the session
+     * @param field Field key used to remember the working strategy, e.g. "HomePage|phoneField"
+     * @param element Field element
+     * @param text Text to enter
+     */
+    public static void enter(AppiumDriver driver, String field, WebElement element, String text) {
+        // Resolve generated and PageFactory elements once instead of on every command below
+        WebElement target = element instanceof WrapsElement ? ((WrapsElement) element).getWrappedElement() : element;
+        if (text.isEmpty()) {
+            target.clear();
+            return;
+        }
+
+        List<Strategy> strategies = getStrategies(field);
+        RuntimeException lastFailure = null;
+        for (Strategy strategy : strategies) {
+            long start = System.nanoTime();
+            try (TraceRecorder.Span ignored = TraceRecorder.begin("enterText", "page", strategy)) {
+                if (!apply(driver, target, strategy, text)) {
+                    continue;
+                }
+                String actual = target.getText();
+                if (matches(text, actual) || isPassword(target)) {
+                    preferred.put(field, strategy);
+                    logger.info("Entered {} characters into {} with {} in {} ms", text.length(), field, strategy,
+                            (System.nanoTime() - start) / 1_000_000);
+                    return;
+                }
+                logger.debug("{} left '{}' in {} instead of '{}', trying the next strategy", strategy, actual, field, text);
+            } catch (RuntimeException e) {
+                lastFailure = e;
+                logger.debug("{} failed for {}: {}", strategy, field, e.getMessage());
+            }
+        }
+        throw new RuntimeException("Failed to enter text into " + field + " with any of " + strategies, lastFailure);
+    }
+
+    /**
+     * Put text into a field with one strategy
+     * @return false when the driver does not support the strategy
+     */
+    private static boolean apply(AppiumDriver driver, WebElement target, Strategy strategy, String text) {
+        switch (strategy) {
+            case REPLACE:
+                if (!(driver instanceof CanReplaceElementValue) || !(target instanceof RemoteWebElement)) {
+                    return false;
+                }
+                ((CanReplaceElementValue) driver).replaceElementValue((RemoteWebElement) target, text);
+                return true;
+            case TYPE:
+                if (!(target instanceof RemoteWebElement)) {
+                    return false;
+                }
+                target.clear();
+                Map<String, Object> arguments = new HashMap<>();
+                arguments.put("elementId", ((RemoteWebElement) target).getId());
+                arguments.put("text", text);
+                driver.executeScript("mobile: type", arguments);
+                return true;
+            case PASTE:
+                if (!(driver instanceof HasClipboard) || !(driver instanceof PressesKey)) {
+                    return false;
+                }
+                ((HasClipboard) driver).setClipboardText(text);
+                target.clear();
+                target.click();
+                ((PressesKey) driver).pressKey(new KeyEvent(AndroidKey.PASTE));
+                return true;
+            default:
+                target.clear();
+                target.sendKeys(text);
+                return true;
+        }
+    }
+
+    /**
+     * Get the strategies to try for a field, the one that worked last time first
+     */
+    private static List<Strategy> getStrategies(String field) {
+        List<Strategy> strategies = new ArrayList<>();
+        for (String name : ConfigManager.getTextEntryStrategies().split(",")) {
+            strategies.add(Strategy.valueOf(name.trim().toUpperCase()));
+        }
+        Strategy known = DriverCassette.isActive() ? null : preferred.get(field);
+        if (known != null && strategies.remove(known)) {
+            strategies.add(0, known);
+        }
+        return strategies;
+    }
+
+    /**
+     * Compare entered text with the field content, ignoring spaces, dashes and parentheses added by input formatters
+     */
+    static boolean matches(String expected, String actual) {
+        return actual != null && normalize(expected).equals(normalize(actual));
+    }
+
+    private static String normalize(String text) {
+        return text.replaceAll("[\\s\\-()]", "");
+    }
+
+    private static boolean isPassword(WebElement target) {
+        return Boolean.parseBoolean(target.getAttribute("password"));
+    }
+}
@@ -0,0 +1,40 @@
+package com.mobile.automation.pages;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * UiAutomator2 settings a page object needs while it is active
+ * Pages without the annotation use the UiAutomator2 defaults below, so the settings in effect only depend on the
+ * active page, never on the pages visited before it
+ * Applied by PageSettings when the page object is created
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Inherited
+public @interface UiAutomatorSettings {
+
+    /**
+     * Milliseconds UiAutomator waits for the UI to become idle before and after each action
+     */
+    long waitForIdleTimeout() default 10000;
+
+    /**
+     * Milliseconds UiAutomator waits for a UiSelector to match
+     */
+    long waitForSelectorTimeout() default 10000;
+
+    /**
+     * Use the compressed layout hierarchy, leaving out views that are only there for layout
+     * Makes lookups and page source faster, but locators must not depend on the removed views
+     */
+    boolean ignoreUnimportantViews() default false;
+
+    /**
+     * Include invisible elements in lookups and page source
+     */
+    boolean allowInvisibleElements() default false;
+}
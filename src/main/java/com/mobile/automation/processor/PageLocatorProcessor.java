@@ -0,0 +1,239 @@
+package com.mobile.automation.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Annotation processor that generates a PageClass_Locators implementation of PageLocators for every page object
+ * whose @AndroidFindBy fields it can bind with plain code
+ * A page is skipped, with a warning, when a field is private, static or final, is not a WebElement, uses an
+ * @AndroidFindBy attribute other than id, uiAutomator, accessibility, xpath, className or tagName, or when the page
+ * or a superclass uses other find annotations; such pages keep using PageFactory at runtime
+ */
+@SupportedAnnotationTypes(PageLocatorProcessor.ANDROID_FIND_BY)
+public class PageLocatorProcessor extends AbstractProcessor {
+    static final String ANDROID_FIND_BY = "io.appium.java_client.pagefactory.AndroidFindBy";
+    private static final String CACHE_LOOKUP = "org.openqa.selenium.support.CacheLookup";
+    private static final String WEB_ELEMENT = "org.openqa.selenium.WebElement";
+    private static final Set<String> OTHER_FIND_ANNOTATIONS = new HashSet<>(Arrays.asList(
+            "io.appium.java_client.pagefactory.AndroidFindBys",
+            "io.appium.java_client.pagefactory.AndroidFindAll",
+            "io.appium.java_client.pagefactory.AndroidFindBy.List",
+            "io.appium.java_client.pagefactory.iOSXCUITFindBy",
+            "io.appium.java_client.pagefactory.iOSXCUITFindBys",
+            "io.appium.java_client.pagefactory.iOSXCUITFindAll",
+            "org.openqa.selenium.support.FindBy",
+            "org.openqa.selenium.support.FindBys",
+            "org.openqa.selenium.support.FindAll"));
+
+    // @AndroidFindBy attribute -> AppiumBy factory method
+    private static final Map<String, String> STRATEGIES = new LinkedHashMap<>();
+
+    static {
+        STRATEGIES.put("id", "id");
+        STRATEGIES.put("uiAutomator", "androidUIAutomator");
+        STRATEGIES.put("accessibility", "accessibilityId");
+        STRATEGIES.put("xpath", "xpath");
+        STRATEGIES.put("className", "className");
+        STRATEGIES.put("tagName", "tagName");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> pages = new HashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element field : roundEnv.getElementsAnnotatedWith(annotation)) {
+                pages.add((TypeElement) field.getEnclosingElement());
+            }
+        }
+        for (TypeElement page : pages) {
+            List<String> bindings = createBindings(page);
+            if (bindings != null) {
+                writeLocators(page, bindings);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build one assignment statement per @AndroidFindBy field
+     * @return statements, or null when the page cannot be bound without PageFactory
+     */
+    private List<String> createBindings(TypeElement page) {
+        if (!isSupportedHierarchy(page)) {
+            return null;
+        }
+        String pageName = page.getSimpleName().toString();
+        List<String> bindings = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(page.getEnclosedElements())) {
+            AnnotationMirror findBy = getAnnotation(field, ANDROID_FIND_BY);
+            if (findBy == null) {
+                continue;
+            }
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) {
+                return skip(page, field, "must not be private, static or final");
+            }
+            if (!WEB_ELEMENT.equals(field.asType().toString())) {
+                return skip(page, field, "must be a WebElement");
+            }
+
+            String strategy = null;
+            String selector = null;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : findBy.getElementValues().entrySet()) {
+                String attribute = value.getKey().getSimpleName().toString();
+                if ("priority".equals(attribute)) {
+                    continue;
+                }
+                if (!STRATEGIES.containsKey(attribute) || strategy != null) {
+                    return skip(page, field, "uses @AndroidFindBy attributes the generator does not support");
+                }
+                strategy = attribute;
+                selector = (String) value.getValue().getValue();
+            }
+            if (strategy == null) {
+                return skip(page, field, "has no locator");
+            }
+
+            String key = pageName + "." + field.getSimpleName();
+            String by = "AppiumBy." + STRATEGIES.get(strategy) + "(" + quote(selector) + ")";
+            if ("id".equals(strategy)) {
+                // Same fastest-locator lookup FastLocatorFieldDecorator does for id fields
+                by = "PageLocators.locate(" + quote(key) + ", " + by + ")";
+            }
+            boolean cacheLookup = getAnnotation(field, CACHE_LOOKUP) != null;
+            bindings.add("page." + field.getSimpleName() + " = new LazyElement(context, " + quote(key) + ", "
+                    + by + ", " + cacheLookup + ");");
+        }
+        return bindings;
+    }
+
+    /**
+     * Check that neither the page nor its superclasses declare fields PageLocators cannot bind
+     */
+    private boolean isSupportedHierarchy(TypeElement page) {
+        for (VariableElement field : ElementFilter.fieldsIn(page.getEnclosedElements())) {
+            for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+                if (OTHER_FIND_ANNOTATIONS.contains(annotation.getAnnotationType().toString())) {
+                    skip(page, field, "uses " + annotation.getAnnotationType());
+                    return false;
+                }
+            }
+        }
+        TypeMirror superclass = page.getSuperclass();
+        while (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement superElement = (TypeElement) ((DeclaredType) superclass).asElement();
+            for (VariableElement field : ElementFilter.fieldsIn(superElement.getEnclosedElements())) {
+                if (getAnnotation(field, ANDROID_FIND_BY) != null) {
+                    skip(page, field, "is declared in superclass " + superElement.getSimpleName());
+                    return false;
+                }
+            }
+            superclass = superElement.getSuperclass();
+        }
+        return true;
+    }
+
+    private void writeLocators(TypeElement page, List<String> bindings) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(page);
+        String packageName = packageElement.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(page).toString();
+        String locatorsName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_')
+                + "_Locators";
+        String pageType = page.getQualifiedName().toString();
+
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile((packageName.isEmpty() ? "" : packageName + ".") + locatorsName, page).openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("import com.mobile.automation.pages.LazyElement;");
+            out.println("import com.mobile.automation.pages.PageLocators;");
+            out.println("import io.appium.java_client.AppiumBy;");
+            out.println("import org.openqa.selenium.SearchContext;");
+            out.println();
+            out.println("/**");
+            out.println(" * Generated by " + PageLocatorProcessor.class.getSimpleName() + " from the @AndroidFindBy fields of "
+                    + page.getSimpleName());
+            out.println(" */");
+            out.println("@javax.annotation.processing.Generated(\"" + PageLocatorProcessor.class.getName() + "\")");
+            out.println("public final class " + locatorsName + " implements PageLocators<" + pageType + "> {");
+            out.println();
+            out.println("    @Override");
+            out.println("    public void bind(" + pageType + " page, SearchContext context) {");
+            for (String binding : bindings) {
+                out.println("        " + binding);
+            }
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to generate " + locatorsName + ": " + e.getMessage(), page);
+        }
+    }
+
+    private List<String> skip(TypeElement page, Element field, String reason) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "No generated locators for "
+                + page.getSimpleName() + ": field " + field.getSimpleName() + " " + reason + "; PageFactory will be used", field);
+        return null;
+    }
+
+    private static AnnotationMirror getAnnotation(Element element, String annotationType) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (annotationType.equals(annotation.getAnnotationType().toString())) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                default:
+                    quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,167 @@
+package com.mobile.automation.utils;
+
+import com.mobile.automation.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the version an APK file contains with aapt2 or aapt from the Android SDK build tools
+ * Versions are cached in the cache directory by the APK's SHA-256, so each build of the APK is read once
+ */
+public class ApkVersion {
+    private static final Logger logger = LoggerFactory.getLogger(ApkVersion.class);
+    private static final String VERSIONS_FILE = "apk-versions.properties";
+    private static final Pattern VERSION_CODE = Pattern.compile("versionCode='([^']*)'");
+    private static final Pattern VERSION_NAME = Pattern.compile("versionName='([^']*)'");
+
+    private static Properties cache;
+
+    /**
+     * Get the version of an APK file
+     * @param apk APK file
+     * @return version as "versionName (versionCode)", like DeviceUtils.getPackageVersion, or null when no build
+     * tool could read it
+     */
+    public static synchronized String of(File apk) {
+        String hash = sha256(apk);
+        String version = getCache().getProperty(hash);
+        if (version == null) {
+            version = readBadging(apk);
+            if (version != null) {
+                getCache().setProperty(hash, version);
+                saveCache();
+            }
+        }
+        return version;
+    }
+
+    private static String readBadging(File apk) {
+        for (String tool : getBuildTools()) {
+            try {
+                Process process = new ProcessBuilder(tool, "dump", "badging", apk.getAbsolutePath())
+                        .redirectError(ProcessBuilder.Redirect.DISCARD)
+                        .start();
+                String packageLine = null;
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (packageLine == null && line.startsWith("package:")) {
+                            packageLine = line;
+                        }
+                    }
+                }
+                if (process.waitFor() != 0 || packageLine == null) {
+                    continue;
+                }
+                Matcher name = VERSION_NAME.matcher(packageLine);
+                Matcher code = VERSION_CODE.matcher(packageLine);
+                if (name.find() && code.find()) {
+                    String version = name.group(1) + " (" + code.group(1) + ")";
+                    logger.info("APK {} has version {}", apk.getName(), version);
+                    return version;
+                }
+            } catch (IOException e) {
+                logger.debug("Could not run {}: {}", tool, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        logger.warn("Could not read the version of {}; set app.version or ANDROID_HOME", apk);
+        return null;
+    }
+
+    /**
+     * Get aapt2 and aapt of the newest SDK build tools first, then the ones on the PATH
+     */
+    private static List<String> getBuildTools() {
+        List<String> tools = new ArrayList<>();
+        String sdk = System.getenv("ANDROID_HOME") != null ? System.getenv("ANDROID_HOME") : System.getenv("ANDROID_SDK_ROOT");
+        File[] versions = sdk != null ? new File(sdk, "build-tools").listFiles(File::isDirectory) : null;
+        if (versions != null) {
+            Arrays.sort(versions, Comparator.comparing(ApkVersion::versionKey).reversed());
+            for (File version : versions) {
+                for (String name : new String[]{"aapt2", "aapt", "aapt2.exe", "aapt.exe"}) {
+                    File tool = new File(version, name);
+                    if (tool.canExecute()) {
+                        tools.add(tool.getAbsolutePath());
+                    }
+                }
+            }
+        }
+        tools.add("aapt2");
+        tools.add("aapt");
+        return tools;
+    }
+
+    /**
+     * Sort key for build tools directories such as "34.0.0", padding each number so they sort numerically
+     */
+    private static String versionKey(File directory) {
+        StringBuilder key = new StringBuilder();
+        for (String part : directory.getName().split("[^0-9]+")) {
+            key.append(String.format("%6s", part));
+        }
+        return key.toString();
+    }
+
+    private static String sha256(File file) {
+        try (InputStream in = new FileInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to hash APK " + file, e);
+        }
+    }
+
+    private static Properties getCache() {
+        if (cache == null) {
+            cache = new Properties();
+            File file = new File(ConfigManager.getCacheDir(), VERSIONS_FILE);
+            if (file.exists()) {
+                try (FileInputStream fis = new FileInputStream(file)) {
+                    cache.load(fis);
+                } catch (IOException e) {
+                    logger.warn("Could not load APK versions", e);
+                }
+            }
+        }
+        return cache;
+    }
+
+    private static void saveCache() {
+        File cacheDir = new File(ConfigManager.getCacheDir());
+        cacheDir.mkdirs();
+        try (FileOutputStream fos = new FileOutputStream(new File(cacheDir, VERSIONS_FILE))) {
+            cache.store(fos, "APK version per APK SHA-256");
+        } catch (IOException e) {
+            logger.warn("Could not write APK versions", e);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.mobile.automation.utils;
+
+import com.mobile.automation.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts and supervises local Appium servers, one per device or per group of appium.server.devices.per.instance devices
+ * Every device also gets its own UiAutomator2 systemPort and chromedriver port, so sessions never collide
+ * Crashed servers are restarted on their port by a background check; all servers are stopped on JVM exit
+ * The server binary comes from appium.server.command, so any stand-in that serves /status on --port can be used
+ */
+public class AppiumServerManager {
+    private static final Logger logger = LoggerFactory.getLogger(AppiumServerManager.class);
+    private static final String HOST = "127.0.0.1";
+    private static final String LOG_DIR = "logs" + File.separator + "appium";
+    private static final long SUPERVISE_INTERVAL_SECONDS = 5;
+    private static final String DEFAULT_DEVICE = "default";
+
+    private static final Map<String, Integer> deviceSlots = new HashMap<>();
+    private static final Map<Integer, ServerInstance> servers = new HashMap<>();
+    private static final Map<Integer, int[]> devicePorts = new HashMap<>();
+    private static final Set<Integer> allocatedPorts = new HashSet<>();
+    private static ScheduledExecutorService supervisor;
+    // stopAll() ends the supervisor, so the next start would otherwise add another hook
+    private static boolean shutdownHookAdded;
+
+    /**
+     * A started Appium server and the port it listens on
+     */
+    private static final class ServerInstance {
+        private final int port;
+        private Process process;
+        private int restarts;
+
+        private ServerInstance(int port) {
+            this.port = port;
+        }
+
+        private String getUrl() {
+            return "http://" + HOST + ":" + port;
+        }
+    }
+
+    /**
+     * Get the URL of the managed server for a device, starting the server if needed
+     * @param serial Device serial, or null for the only connected device
+     * @return server URL
+     */
+    public static String getServerUrl(String serial) {
+        ServerInstance server;
+        synchronized (AppiumServerManager.class) {
+            int group = getSlot(serial) / Math.max(1, ConfigManager.getDevicesPerAppiumServer());
+            server = servers.computeIfAbsent(group, key -> new ServerInstance(allocatePort(ConfigManager.getAppiumServerBasePort())));
+            startSupervisor();
+        }
+        synchronized (server) {
+            if (server.process == null || !server.process.isAlive()) {
+                startServer(server);
+            }
+        }
+        return server.getUrl();
+    }
+
+    /**
+     * Get the UiAutomator2 systemPort allocated to a device
+     * @param serial Device serial, or null for the only connected device
+     * @return systemPort
+     */
+    public static synchronized int getSystemPort(String serial) {
+        return getDevicePorts(serial)[0];
+    }
+
+    /**
+     * Get the chromedriver port allocated to a device
+     * @param serial Device serial, or null for the only connected device
+     * @return chromedriver port
+     */
+    public static synchronized int getChromedriverPort(String serial) {
+        return getDevicePorts(serial)[1];
+    }
+
+    /**
+     * Start the servers of several devices concurrently
+     * @param serials Device serials
+     */
+    public static void startAll(List<String> serials) {
+        if (serials.isEmpty()) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(serials.size(), VirtualThreads.newThreadFactory("appium-start"));
+        List<Future<String>> starts = new ArrayList<>();
+        for (String serial : serials) {
+            starts.add(executor.submit(() -> getServerUrl(serial)));
+        }
+        for (int i = 0; i < serials.size(); i++) {
+            try {
+                logger.info("Appium server for device {}: {}", serials.get(i), starts.get(i).get());
+            } catch (Exception e) {
+                logger.error("Failed to start Appium server for device {}", serials.get(i), e);
+            }
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Stop all managed servers
+     */
+    public static synchronized void stopAll() {
+        if (supervisor != null) {
+            supervisor.shutdownNow();
+            supervisor = null;
+        }
+        for (ServerInstance server : servers.values()) {
+            synchronized (server) {
+                if (server.process != null && server.process.isAlive()) {
+                    logger.info("Stopping Appium server on port {}", server.port);
+                    server.process.destroy();
+                    try {
+                        if (!server.process.waitFor(10, TimeUnit.SECONDS)) {
+                            server.process.destroyForcibly();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        server.process.destroyForcibly();
+                    }
+                }
+                server.process = null;
+            }
+        }
+    }
+
+    /**
+     * Check if an Appium server answers its /status endpoint
+     * @param serverUrl Server base URL
+     * @return true if /status returned 200
+     */
+    public static boolean isServerResponding(String serverUrl) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(serverUrl + "/status").openConnection();
+            connection.setRequestMethod("GET");
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(5000);
+            return connection.getResponseCode() == 200;
+        } catch (Exception e) {
+            logger.debug("Appium server status check failed for {}: {}", serverUrl, e.getMessage());
+            return false;
+        }
+    }
+
+    private static int getSlot(String serial) {
+        return deviceSlots.computeIfAbsent(serial != null ? serial : DEFAULT_DEVICE, key -> deviceSlots.size());
+    }
+
+    private static int[] getDevicePorts(String serial) {
+        return devicePorts.computeIfAbsent(getSlot(serial), slot -> new int[] {
+                allocatePort(ConfigManager.getSystemPortBase()),
+                allocatePort(ConfigManager.getChromedriverPortBase())
+        });
+    }
+
+    /**
+     * Find the first port from base that is neither handed out already nor bound by another process
+     */
+    private static int allocatePort(int base) {
+        for (int port = base; port < 65535; port++) {
+            if (allocatedPorts.contains(port)) {
+                continue;
+            }
+            try (ServerSocket socket = new ServerSocket(port, 1, InetAddress.getByName(HOST))) {
+                socket.setReuseAddress(true);
+                allocatedPorts.add(port);
+                return port;
+            } catch (IOException e) {
+                // Port in use, try the next one
+            }
+        }
+        throw new RuntimeException("No free port available from " + base);
+    }
+
+    private static void startServer(ServerInstance server) {
+        List<String> command = new ArrayList<>(Arrays.asList(ConfigManager.getAppiumServerCommand().trim().split("\\s+")));
+        command.addAll(Arrays.asList("--address", HOST, "--port", String.valueOf(server.port)));
+        try {
+            File logDir = new File(LOG_DIR);
+            logDir.mkdirs();
+            File logFile = new File(logDir, "appium-" + server.port + ".log");
+
+            logger.info("Starting Appium server: {}", String.join(" ", command));
+            server.process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile))
+                    .start();
+
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ConfigManager.getAppiumServerStartTimeout());
+            while (!isServerResponding(server.getUrl())) {
+                if (!server.process.isAlive()) {
+                    throw new RuntimeException("Appium server on port " + server.port + " exited with code "
+                            + server.process.exitValue() + ", see " + logFile);
+                }
+                if (System.currentTimeMillis() > deadline) {
+                    server.process.destroyForcibly();
+                    throw new RuntimeException("Appium server on port " + server.port + " did not start within "
+                            + ConfigManager.getAppiumServerStartTimeout() + " seconds, see " + logFile);
+                }
+                Thread.sleep(500);
+            }
+            logger.info("Appium server ready at {}", server.getUrl());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to start Appium server on port " + server.port, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while starting Appium server on port " + server.port, e);
+        }
+    }
+
+    private static void startSupervisor() {
+        if (supervisor != null) {
+            return;
+        }
+        supervisor = Executors.newSingleThreadScheduledExecutor(VirtualThreads.newThreadFactory("appium-supervisor"));
+        supervisor.scheduleWithFixedDelay(AppiumServerManager::restartCrashedServers,
+                SUPERVISE_INTERVAL_SECONDS, SUPERVISE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        if (!shutdownHookAdded) {
+            Runtime.getRuntime().addShutdownHook(new Thread(AppiumServerManager::stopAll, "appium-server-shutdown"));
+            shutdownHookAdded = true;
+        }
+    }
+
+    private static void restartCrashedServers() {
+        List<ServerInstance> snapshot;
+        synchronized (AppiumServerManager.class) {
+            snapshot = new ArrayList<>(servers.values());
+        }
+        for (ServerInstance server : snapshot) {
+            synchronized (server) {
+                if (server.process != null && !server.process.isAlive()) {
+                    server.restarts++;
+                    logger.warn("Appium server on port {} exited with code {}, restarting (restart #{})",
+                            server.port, server.process.exitValue(), server.restarts);
+                    try {
+                        startServer(server);
+                    } catch (RuntimeException e) {
+                        logger.error("Failed to restart Appium server on port {}", server.port, e);
+                    }
+                }
+            }
+        }
+    }
+}
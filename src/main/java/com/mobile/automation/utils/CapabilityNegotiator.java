@@ -0,0 +1,182 @@
+package com.mobile.automation.utils;
+
+import com.mobile.automation.config.ConfigManager;
+import io.appium.java_client.android.options.UiAutomator2Options;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the cheapest session capabilities that are still correct for a device
+ * The device is probed for an installed and matching UiAutomator2 server, the app at the expected version,
+ * and the settings a device initialization would apply; each setup step that is already done is skipped
+ * The app data is still reset for every session, so tests keep starting from a clean app
+ */
+public class CapabilityNegotiator {
+    private static final Logger logger = LoggerFactory.getLogger(CapabilityNegotiator.class);
+    private static final String SERVER_PACKAGE = "io.appium.uiautomator2.server";
+    private static final String SERVER_TEST_PACKAGE = "io.appium.uiautomator2.server.test";
+    private static final String SETTINGS_PACKAGE = "io.appium.settings";
+    private static final String[] ANIMATION_SETTINGS = {
+            "window_animation_scale", "transition_animation_scale", "animator_duration_scale"
+    };
+    private static final String DEFAULT_DEVICE = "default";
+
+    // Server and settings stay in place once a session has set them up, so positive probes are kept per device
+    private static final Set<String> serverReady = ConcurrentHashMap.newKeySet();
+    private static final Set<String> deviceInitialized = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Setup steps a session has to perform on a device
+     */
+    public static final class Profile {
+        private final boolean installApp;
+        private final boolean installServer;
+        private final boolean initializeDevice;
+
+        private Profile(boolean installApp, boolean installServer, boolean initializeDevice) {
+            this.installApp = installApp;
+            this.installServer = installServer;
+            this.initializeDevice = initializeDevice;
+        }
+
+        /**
+         * Apply the profile to the session options
+         * @param options Options to update
+         */
+        public void applyTo(UiAutomator2Options options) {
+            if (installApp) {
+                File appFile = getAppFile();
+                if (appFile != null) {
+                    logger.info("Setting app path: {}", appFile.getAbsolutePath());
+                    options.setApp(appFile.getAbsolutePath());
+                }
+            }
+            options.setCapability("appium:skipServerInstallation", !installServer);
+            options.setCapability("appium:skipDeviceInitialization", !initializeDevice);
+        }
+
+        /**
+         * Get a short description of the steps, for logs
+         * @return profile name such as "install-app+install-server" or "reuse-all"
+         */
+        public String getName() {
+            List<String> steps = new ArrayList<>();
+            if (installApp) {
+                steps.add("install-app");
+            }
+            if (installServer) {
+                steps.add("install-server");
+            }
+            if (initializeDevice) {
+                steps.add("init-device");
+            }
+            return steps.isEmpty() ? "reuse-all" : String.join("+", steps);
+        }
+
+        @Override
+        public String toString() {
+            return getName();
+        }
+    }
+
+    /**
+     * Probe a device and pick the session setup steps it still needs
+     * Falls back to the full setup when negotiation is disabled or a probe fails
+     * @param serial Device serial, or null for the only connected device
+     * @return Profile for the session
+     */
+    public static Profile negotiate(String serial) {
+        if (!ConfigManager.isCapabilityNegotiationEnabled()) {
+            return fullSetup();
+        }
+        try {
+            long start = System.currentTimeMillis();
+            String key = serial != null ? serial : DEFAULT_DEVICE;
+            boolean appCurrent = isAppCurrent(serial);
+            boolean serverCurrent = serverReady.contains(key) || isServerCurrent(serial);
+            boolean settingsApplied = deviceInitialized.contains(key) || isDeviceInitialized(serial);
+
+            Profile profile = new Profile(!appCurrent, !serverCurrent, !settingsApplied);
+            logger.info("Negotiated capability profile {} for device {} in {} ms", profile.getName(),
+                    serial != null ? serial : DEFAULT_DEVICE, System.currentTimeMillis() - start);
+            return profile;
+        } catch (RuntimeException e) {
+            logger.warn("Capability probe failed for device {}, using full setup", serial, e);
+            return fullSetup();
+        }
+    }
+
+    /**
+     * Remember that a session was created on the device, so its server and settings count as set up
+     * @param serial Device serial, or null for the only connected device
+     */
+    public static void recordSessionCreated(String serial) {
+        String key = serial != null ? serial : DEFAULT_DEVICE;
+        serverReady.add(key);
+        deviceInitialized.add(key);
+    }
+
+    private static Profile fullSetup() {
+        return new Profile(getAppFile() != null, true, true);
+    }
+
+    private static File getAppFile() {
+        String appPath = ConfigManager.getAppPath();
+        if (appPath == null || appPath.trim().isEmpty()) {
+            return null;
+        }
+        File appFile = new File(appPath);
+        if (!appFile.exists()) {
+            logger.warn("App file not found at path: {}. Using package/activity only.", appPath);
+            return null;
+        }
+        return appFile;
+    }
+
+    /**
+     * Compare the installed app with the APK at app.path: versionName and versionCode read from the APK, or the
+     * versionName set as app.version
+     */
+    private static boolean isAppCurrent(String serial) {
+        File appFile = getAppFile();
+        if (appFile == null) {
+            // Nothing to install from; the installed app is all we can use
+            return true;
+        }
+        String override = ConfigManager.getExpectedAppVersion();
+        if (override != null) {
+            return override.equals(DeviceUtils.getPackageVersionName(serial, ConfigManager.getAppPackage()));
+        }
+        String expected = ApkVersion.of(appFile);
+        return expected != null && expected.equals(DeviceUtils.getPackageVersion(serial, ConfigManager.getAppPackage()));
+    }
+
+    private static boolean isServerCurrent(String serial) {
+        String server = DeviceUtils.getPackageVersionName(serial, SERVER_PACKAGE);
+        String serverTest = DeviceUtils.getPackageVersionName(serial, SERVER_TEST_PACKAGE);
+        if (server == null || !server.equals(serverTest)) {
+            return false;
+        }
+        String expected = ConfigManager.getExpectedUiAutomator2ServerVersion();
+        return expected == null || expected.equals(server);
+    }
+
+    private static boolean isDeviceInitialized(String serial) {
+        if (DeviceUtils.getPackageVersionName(serial, SETTINGS_PACKAGE) == null) {
+            return false;
+        }
+        for (String setting : ANIMATION_SETTINGS) {
+            String value = DeviceUtils.executeAdbCommandOnDevice(serial, "shell", "settings", "get", "global", setting).trim();
+            if (!"0".equals(value) && !"0.0".equals(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,193 @@
+package com.mobile.automation.utils;
+
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.context.TestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of prepared devices shared by all test threads
+ * prepareAll() prepares every connected device concurrently at suite start and keeps only the ones that succeeded;
+ * tests lease a device with acquire() and give it back with release()
+ */
+public class DevicePool {
+    private static final Logger logger = LoggerFactory.getLogger(DevicePool.class);
+    private static final BlockingQueue<String> availableDevices = new LinkedBlockingQueue<>();
+    private static final List<String> readyDevices = Collections.synchronizedList(new ArrayList<>());
+    private static final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private static final AtomicInteger waitingTests = new AtomicInteger();
+    private static volatile boolean prepared;
+
+    /**
+     * The test context and thread holding a device
+     */
+    private static final class Lease {
+        private final TestContext context;
+        private final Thread thread;
+
+        private Lease(TestContext context, Thread thread) {
+            this.context = context;
+            this.thread = thread;
+        }
+    }
+
+    /**
+     * Prepare all connected devices in parallel; devices that fail are left out of the pool
+     * @return List of serials ready for testing
+     */
+    public static synchronized List<String> prepareAll() {
+        List<String> devices = DeviceUtils.getConnectedDevices();
+        if (devices.isEmpty()) {
+            logger.error("No Android devices connected. Please connect a device or start an emulator.");
+            return Collections.emptyList();
+        }
+        logger.info("Preparing {} devices concurrently", devices.size());
+        long start = System.currentTimeMillis();
+
+        ExecutorService executor = Executors.newFixedThreadPool(devices.size(), VirtualThreads.newThreadFactory("device-prepare"));
+        Map<String, Future<?>> preparations = new ConcurrentHashMap<>();
+        for (String serial : devices) {
+            preparations.put(serial, executor.submit(() -> DeviceUtils.prepareDevice(serial)));
+        }
+        for (String serial : devices) {
+            try {
+                preparations.get(serial).get();
+                readyDevices.add(serial);
+                availableDevices.add(serial);
+            } catch (Exception e) {
+                logger.error("Excluding device {} from the pool: preparation failed", serial, e);
+            }
+        }
+        executor.shutdown();
+        prepared = true;
+
+        logger.info("Device pool ready in {} ms: {} of {} devices ({})", System.currentTimeMillis() - start,
+                readyDevices.size(), devices.size(), readyDevices);
+        return new ArrayList<>(readyDevices);
+    }
+
+    /**
+     * Check whether the pool was prepared at suite start
+     * @return true after prepareAll() ran
+     */
+    public static boolean isPrepared() {
+        return prepared;
+    }
+
+    /**
+     * Get the serials of the devices that were prepared successfully
+     * @return List of ready device serials
+     */
+    public static List<String> getReadyDevices() {
+        return new ArrayList<>(readyDevices);
+    }
+
+    /**
+     * Lease a free prepared device to the current test, waiting up to device.acquire.timeout seconds
+     * @return device serial, or null when the pool was not prepared and the single default device is used
+     */
+    public static String acquire() {
+        if (!prepared) {
+            return null;
+        }
+        if (readyDevices.isEmpty()) {
+            throw new IllegalStateException("No prepared devices in the pool");
+        }
+        try {
+            long waitStart = System.nanoTime();
+            String serial;
+            waitingTests.incrementAndGet();
+            try {
+                serial = availableDevices.poll(ConfigManager.getDeviceAcquireTimeout(), TimeUnit.SECONDS);
+            } finally {
+                waitingTests.decrementAndGet();
+                RunMetrics.DEVICE_ACQUIRE_WAIT.observeSince(waitStart);
+            }
+            if (serial == null) {
+                throw new IllegalStateException("Timed out waiting for a free device");
+            }
+            TestContext context = TestContext.current();
+            context.setDeviceSerial(serial);
+            leases.put(serial, new Lease(context, Thread.currentThread()));
+            logger.info("Leased device {} to {}", serial, Thread.currentThread().getName());
+            return serial;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a free device", e);
+        }
+    }
+
+    /**
+     * Return the device leased by the current test to the pool
+     */
+    public static void release() {
+        TestContext context = TestContext.peek();
+        String serial = context != null ? context.getDeviceSerial() : null;
+        if (serial == null) {
+            return;
+        }
+        context.setDeviceSerial(null);
+        if (leases.remove(serial) != null && readyDevices.contains(serial)) {
+            availableDevices.add(serial);
+        }
+        logger.info("Released device {}", serial);
+    }
+
+    /**
+     * Get how many devices are currently leased to tests
+     * @return leased device count
+     */
+    public static int getLeasedCount() {
+        return leases.size();
+    }
+
+    /**
+     * Get how many tests are waiting for a free device
+     * @return waiting test count
+     */
+    public static int getWaitingCount() {
+        return waitingTests.get();
+    }
+
+    /**
+     * Return devices whose test ended without releasing them, because its context was closed or its thread died
+     * @return number of devices returned to the pool
+     */
+    public static int reclaimStuckLeases() {
+        int reclaimed = 0;
+        for (Map.Entry<String, Lease> entry : leases.entrySet()) {
+            Lease lease = entry.getValue();
+            if ((lease.context.isClosed() || !lease.thread.isAlive()) && leases.remove(entry.getKey(), lease)) {
+                lease.context.setDeviceSerial(null);
+                if (readyDevices.contains(entry.getKey())) {
+                    availableDevices.add(entry.getKey());
+                }
+                logger.warn("Reclaimed device {} left leased by {}", entry.getKey(), lease.thread.getName());
+                reclaimed++;
+            }
+        }
+        return reclaimed;
+    }
+
+    /**
+     * Get the device leased by the current test
+     * @return device serial, or null when the test holds no lease
+     */
+    public static String getCurrentDevice() {
+        TestContext context = TestContext.peek();
+        return context != null ? context.getDeviceSerial() : null;
+    }
+}
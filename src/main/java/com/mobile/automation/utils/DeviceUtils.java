@@ -5,35 +5,56 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
 
 /**
  * Utility class for device preparation and validation
  */
 public class DeviceUtils {
+    /** Returned by getInstalledAppVersion() when the version cannot be determined */
+    public static final String UNKNOWN_VERSION = "unknown";
+
     private static final Logger logger = LoggerFactory.getLogger(DeviceUtils.class);
+    private static final Semaphore INSTALL_PERMITS = new Semaphore(ConfigManager.getMaxParallelInstalls());
     
     /**
      * Prepare device for testing by checking connectivity and app installation
      */
     public static void prepareDevice() {
-        logger.info("Preparing device for testing...");
+        prepareDevice(null);
+    }
+    
+    /**
+     * Prepare a specific device for testing by checking connectivity and app installation
+     * @param serial Device serial, or null for the only connected device
+     */
+    public static void prepareDevice(String serial) {
+        logger.info("Preparing device {} for testing...", serial != null ? serial : "");
         
         // Check device connectivity
-        if (!isDeviceConnected()) {
+        List<String> devices = getConnectedDevices();
+        if (devices.isEmpty()) {
             throw new RuntimeException("No Android devices connected. Please connect a device or start an emulator.");
         }
+        if (serial != null && !devices.contains(serial)) {
+            throw new RuntimeException("Device " + serial + " is not connected or not ready");
+        }
         
         // Check if app is installed
-        if (!isAppInstalled()) {
+        if (!isAppInstalled(serial)) {
             logger.info("App not installed. Installing from APK path...");
-            installApp();
+            installApp(serial);
         } else {
             logger.info("App is already installed on device");
         }
         
         // Grant permissions if needed
-        grantAppPermissions();
+        grantAppPermissions(serial);
         
         logger.info("Device preparation completed successfully");
     }
@@ -42,42 +63,52 @@ public class DeviceUtils {
      * Check if Android device is connected
      */
     public static boolean isDeviceConnected() {
+        return !getConnectedDevices().isEmpty();
+    }
+    
+    /**
+     * Get the serials of all devices in the "device" state (offline and unauthorized devices are left out)
+     * @return List of device serials
+     */
+    public static List<String> getConnectedDevices() {
+        List<String> devices = new ArrayList<>();
         try {
-            Process process = Runtime.getRuntime().exec("adb devices");
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            
-            String line;
-            boolean deviceFound = false;
-            while ((line = reader.readLine()) != null) {
-                if (line.contains("device") && !line.contains("List of devices")) {
-                    deviceFound = true;
-                    logger.info("Found connected device: {}", line.trim());
+            for (String line : executeAdbCommand("devices").split("\n")) {
+                String[] columns = line.trim().split("\\s+");
+                if (columns.length >= 2 && "device".equals(columns[1])) {
+                    devices.add(columns[0]);
+                    logger.info("Found connected device: {}", columns[0]);
                 }
             }
-            
-            process.waitFor();
-            return deviceFound;
-            
         } catch (Exception e) {
             logger.error("Error checking device connectivity", e);
-            return false;
         }
+        return devices;
     }
     
     /**
      * Check if the target app is installed on device
      */
     public static boolean isAppInstalled() {
+        return isAppInstalled(null);
+    }
+    
+    /**
+     * Check if the target app is installed on a specific device
+     * @param serial Device serial, or null for the only connected device
+     */
+    public static boolean isAppInstalled(String serial) {
         try {
-            String command = "adb shell pm list packages | grep " + ConfigManager.getAppPackage();
-            Process process = Runtime.getRuntime().exec(command);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            
-            String line = reader.readLine();
-            process.waitFor();
+            String appPackage = ConfigManager.getAppPackage();
+            String output = executeAdbCommandOnDevice(serial, "shell", "pm", "list", "packages", appPackage);
             
-            boolean isInstalled = line != null && line.contains(ConfigManager.getAppPackage());
-            logger.info("App {} installation status: {}", ConfigManager.getAppPackage(), isInstalled ? "INSTALLED" : "NOT INSTALLED");
+            boolean isInstalled = false;
+            for (String line : output.split("\n")) {
+                if (line.trim().equals("package:" + appPackage)) {
+                    isInstalled = true;
+                }
+            }
+            logger.info("App {} installation status: {}", appPackage, isInstalled ? "INSTALLED" : "NOT INSTALLED");
             
             return isInstalled;
             
@@ -91,6 +122,14 @@ public class DeviceUtils {
      * Install app from APK path
      */
     public static void installApp() {
+        installApp(null);
+    }
+    
+    /**
+     * Install app from APK path on a specific device
+     * @param serial Device serial, or null for the only connected device
+     */
+    public static void installApp(String serial) {
         try {
             String appPath = ConfigManager.getAppPath();
             if (appPath == null || appPath.trim().isEmpty()) {
@@ -99,29 +138,34 @@ public class DeviceUtils {
             }
             
             logger.info("Installing app from: {}", appPath);
-            String[] command = {"adb", "install", "-r", appPath};
-            Process process = Runtime.getRuntime().exec(command);
-            
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
+            List<String> command = serial != null
+                    ? buildAdbCommand("-s", serial, "install", "-r", appPath)
+                    : buildAdbCommand("install", "-r", appPath);
             
-            String line;
+            // Concurrent installs share host disk and USB bandwidth, so only a few run at once
+            INSTALL_PERMITS.acquire();
             StringBuilder output = new StringBuilder();
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-            
-            StringBuilder errorOutput = new StringBuilder();
-            while ((line = errorReader.readLine()) != null) {
-                errorOutput.append(line).append("\n");
+            int exitCode;
+            try {
+                // Merge stderr into stdout so a full stderr pipe cannot stall the install
+                Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+                
+                BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+                
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.append(line).append("\n");
+                }
+                
+                exitCode = process.waitFor();
+            } finally {
+                INSTALL_PERMITS.release();
             }
             
-            int exitCode = process.waitFor();
-            
             if (exitCode == 0 || output.toString().contains("Success")) {
                 logger.info("App installed successfully");
             } else {
-                logger.error("App installation failed. Output: {}, Error: {}", output.toString(), errorOutput.toString());
+                logger.error("App installation failed. Output: {}", output.toString());
                 throw new RuntimeException("Failed to install app");
             }
             
@@ -135,6 +179,14 @@ public class DeviceUtils {
      * Grant necessary permissions to the app
      */
     public static void grantAppPermissions() {
+        grantAppPermissions(null);
+    }
+    
+    /**
+     * Grant necessary permissions to the app on a specific device
+     * @param serial Device serial, or null for the only connected device
+     */
+    public static void grantAppPermissions(String serial) {
         try {
             String appPackage = ConfigManager.getAppPackage();
             
@@ -156,9 +208,7 @@ public class DeviceUtils {
             
             for (String permission : permissions) {
                 try {
-                    String command = "adb shell pm grant " + appPackage + " " + permission;
-                    Process process = Runtime.getRuntime().exec(command);
-                    process.waitFor();
+                    executeAdbCommandOnDevice(serial, "shell", "pm", "grant", appPackage, permission);
                     logger.debug("Granted permission: {}", permission);
                 } catch (Exception e) {
                     logger.debug("Could not grant permission {} (might not be needed): {}", permission, e.getMessage());
@@ -177,9 +227,7 @@ public class DeviceUtils {
      */
     public static void stopApp() {
         try {
-            String command = "adb shell am force-stop " + ConfigManager.getAppPackage();
-            Process process = Runtime.getRuntime().exec(command);
-            process.waitFor();
+            executeAdbCommand("shell", "am", "force-stop", ConfigManager.getAppPackage());
             logger.info("App stopped successfully");
         } catch (Exception e) {
             logger.warn("Error stopping app: {}", e.getMessage());
@@ -191,9 +239,7 @@ public class DeviceUtils {
      */
     public static void clearAppData() {
         try {
-            String command = "adb shell pm clear " + ConfigManager.getAppPackage();
-            Process process = Runtime.getRuntime().exec(command);
-            process.waitFor();
+            executeAdbCommand("shell", "pm", "clear", ConfigManager.getAppPackage());
             logger.info("App data cleared successfully");
         } catch (Exception e) {
             logger.warn("Error clearing app data: {}", e.getMessage());
@@ -201,24 +247,249 @@ public class DeviceUtils {
     }
     
     /**
-     * Start the app manually (useful for debugging)
+     * Get the installed app version as "versionName (versionCode)"
+     * @return String installed version, or UNKNOWN_VERSION when it cannot be determined
      */
-    public static void startApp() {
+    public static String getInstalledAppVersion() {
+        String version = getPackageVersion(null, ConfigManager.getAppPackage());
+        if (version == null) {
+            logger.warn("Could not determine installed version of {}", ConfigManager.getAppPackage());
+            return UNKNOWN_VERSION;
+        }
+        return version;
+    }
+    
+    /**
+     * Get the version of an installed package on a specific device as "versionName (versionCode)"
+     * @param serial Device serial, or null for the only connected device
+     * @param packageName Package to look up
+     * @return installed version, or null when the package is not installed
+     */
+    public static String getPackageVersion(String serial, String packageName) {
+        String output = executeAdbCommandOnDevice(serial, "shell", "dumpsys", "package", packageName);
+        String versionName = null;
+        String versionCode = null;
+        for (String line : output.split("\n")) {
+            String trimmed = line.trim();
+            if (versionName == null && trimmed.startsWith("versionName=")) {
+                versionName = trimmed.substring("versionName=".length());
+            } else if (versionCode == null && trimmed.startsWith("versionCode=")) {
+                versionCode = trimmed.substring("versionCode=".length()).split(" ")[0];
+            }
+        }
+        return versionName != null ? versionName + " (" + versionCode + ")" : null;
+    }
+    
+    /**
+     * Get the versionName of an installed package on a specific device
+     * @param serial Device serial, or null for the only connected device
+     * @param packageName Package to look up
+     * @return versionName, or null when the package is not installed
+     */
+    public static String getPackageVersionName(String serial, String packageName) {
+        String output = executeAdbCommandOnDevice(serial, "shell", "dumpsys", "package", packageName);
+        for (String line : output.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("versionName=")) {
+                return trimmed.substring("versionName=".length());
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Launch an activity of the app directly, waiting for the launch to complete
+     * @param activity Activity class name, fully qualified or relative to the app package
+     * @param extras String extras as "key=value" pairs
+     */
+    public static void launchActivity(String activity, String... extras) {
+        List<String> command = new ArrayList<>(Arrays.asList(
+                "shell", "am", "start", "-W", "-S", "-n", ConfigManager.getAppPackage() + "/" + activity));
+        for (String extra : extras) {
+            int separator = extra.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Extra must be in key=value form: " + extra);
+            }
+            command.add("--es");
+            command.add(extra.substring(0, separator));
+            command.add(extra.substring(separator + 1));
+        }
+        String output = executeAdbCommand(command.toArray(new String[0]));
+        if (output.contains("Error")) {
+            throw new RuntimeException("Failed to launch activity " + activity + ": " + output.trim());
+        }
+        logger.info("Launched activity {}", activity);
+    }
+    
+    /**
+     * Open a deep link in the app, waiting for the launch to complete
+     * @param uri Deep link URI
+     */
+    public static void openDeepLink(String uri) {
+        String output = executeAdbCommand("shell", "am", "start", "-W", "-a", "android.intent.action.VIEW",
+                "-d", uri, ConfigManager.getAppPackage());
+        if (output.contains("Error")) {
+            throw new RuntimeException("Failed to open deep link " + uri + ": " + output.trim());
+        }
+        logger.info("Opened deep link {}", uri);
+    }
+    
+    /**
+     * Save the app data directory to a local checkpoint archive through run-as
+     * Requires a debuggable build of the app
+     * @param checkpointFile File to write the tar archive to
+     */
+    public static void saveAppCheckpoint(File checkpointFile) {
+        if (DriverCassette.isReplaying()) {
+            return;
+        }
         try {
-            String command = "adb shell am start -n " + ConfigManager.getAppPackage() + "/" + ConfigManager.getAppActivity();
-            Process process = Runtime.getRuntime().exec(command);
-            
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                logger.debug("Start app output: {}", line);
+            checkpointFile.getParentFile().mkdirs();
+            String appPackage = ConfigManager.getAppPackage();
+            Process process = new ProcessBuilder(buildAdbCommand("exec-out", "run-as", appPackage,
+                    "tar", "-cf", "-", "-C", "/data/data/" + appPackage, "."))
+                    .redirectOutput(checkpointFile)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (process.waitFor() != 0 || checkpointFile.length() == 0) {
+                throw new RuntimeException("run-as tar exited with code " + process.exitValue());
+            }
+            logger.info("Saved app data checkpoint to {}", checkpointFile);
+        } catch (Exception e) {
+            logger.error("Error saving app checkpoint", e);
+            throw new RuntimeException("Failed to save app checkpoint", e);
+        }
+    }
+    
+    /**
+     * Restore the app data directory from a local checkpoint archive through run-as
+     * The app is force stopped and its data directory emptied first, so it starts from exactly the saved state on
+     * next launch without files written after the checkpoint
+     * @param checkpointFile File holding a tar archive written by saveAppCheckpoint
+     */
+    public static void restoreAppCheckpoint(File checkpointFile) {
+        if (DriverCassette.isReplaying()) {
+            // Only the adb commands of the recorded restore are replayed, the archive is not needed
+            stopApp();
+            clearAppDataDirectory();
+            return;
+        }
+        if (!checkpointFile.exists()) {
+            throw new RuntimeException("App checkpoint not found: " + checkpointFile);
+        }
+        try {
+            stopApp();
+            clearAppDataDirectory();
+            String appPackage = ConfigManager.getAppPackage();
+            Process process = new ProcessBuilder(buildAdbCommand("exec-in", "run-as", appPackage,
+                    "tar", "-xf", "-", "-C", "/data/data/" + appPackage))
+                    .redirectInput(checkpointFile)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (process.waitFor() != 0) {
+                throw new RuntimeException("run-as tar exited with code " + process.exitValue());
+            }
+            logger.info("Restored app data checkpoint from {}", checkpointFile);
+        } catch (Exception e) {
+            logger.error("Error restoring app checkpoint", e);
+            throw new RuntimeException("Failed to restore app checkpoint", e);
+        }
+    }
+    
+    /**
+     * Delete the contents of the app data directory through run-as, keeping the lib link the system manages
+     * Unlike pm clear, granted permissions and the app's registration stay as they are
+     */
+    private static void clearAppDataDirectory() {
+        String appPackage = ConfigManager.getAppPackage();
+        String output = executeAdbCommand("shell", "run-as", appPackage, "find", "/data/data/" + appPackage,
+                "-mindepth", "1", "-maxdepth", "1", "!", "-name", "lib", "-exec", "rm", "-rf", "{}", "+");
+        if (!output.trim().isEmpty()) {
+            throw new RuntimeException("Failed to clear app data before restoring checkpoint: " + output.trim());
+        }
+    }
+    
+    /**
+     * Run an adb command against a specific device and return its combined stdout and stderr output
+     * @param serial Device serial, or null for the only connected device
+     * @param args adb arguments after the device selection
+     * @return String command output
+     */
+    public static String executeAdbCommandOnDevice(String serial, String... args) {
+        if (serial == null) {
+            return executeAdbCommand(args);
+        }
+        String[] command = new String[args.length + 2];
+        command[0] = "-s";
+        command[1] = serial;
+        System.arraycopy(args, 0, command, 2, args.length);
+        return executeAdbCommand(command);
+    }
+    
+    /**
+     * Run an adb command and return its combined stdout and stderr output
+     * Commands without an explicit "-s serial" target the device leased by the current test, if any
+     * @param args adb arguments, e.g. "shell", "pm", "list", "packages"
+     * @return String command output
+     */
+    public static String executeAdbCommand(String... args) {
+        List<String> command = buildAdbCommand(args);
+        if (DriverCassette.isReplaying()) {
+            return DriverCassette.replayAdb(command);
+        }
+        long start = System.nanoTime();
+        try (TraceRecorder.Span ignored = TraceRecorder.begin("adb", "adb", command)) {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            StringBuilder output = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.append(line).append("\n");
+                }
             }
-            
             process.waitFor();
+            DriverCassette.recordAdb(command, output.toString());
+            return output.toString();
+        } catch (Exception e) {
+            logger.error("Error running adb command: {}", String.join(" ", command), e);
+            throw new RuntimeException("Failed to run adb command", e);
+        } finally {
+            RunMetrics.ADB_COMMAND.observeSince(start);
+        }
+    }
+    
+    /**
+     * Build an adb command line, selecting the device leased by the current test unless args already select one
+     * @param args adb arguments
+     * @return List command line starting with adb
+     */
+    private static List<String> buildAdbCommand(String... args) {
+        List<String> command = new ArrayList<>();
+        command.add("adb");
+        String serial = DevicePool.getCurrentDevice();
+        if (serial != null && (args.length == 0 || !"-s".equals(args[0]))) {
+            command.add("-s");
+            command.add(serial);
+        }
+        command.addAll(Arrays.asList(args));
+        return command;
+    }
+    
+    /**
+     * Start the app manually (useful for debugging)
+     */
+    public static void startApp() {
+        try {
+            String output = executeAdbCommand("shell", "am", "start", "-n",
+                    ConfigManager.getAppPackage() + "/" + ConfigManager.getAppActivity());
+            logger.debug("Start app output: {}", output.trim());
             logger.info("App started successfully");
             
-            // Wait for app to load
-            Thread.sleep(3000);
+            // Wait for app to load; a replayed app is already there
+            if (!DriverCassette.isReplaying()) {
+                Thread.sleep(3000);
+            }
             
         } catch (Exception e) {
             logger.error("Error starting app", e);
@@ -0,0 +1,503 @@
+package com.mobile.automation.utils;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.context.TestContext;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Records the driver's HTTP traffic and the adb commands of each test into a cassette and plays them back without
+ * a device or Appium server, so page object logic can be re-verified at CPU speed
+ * The cassette is a zip file with one compressed entry per test, so a replay reads only the tests it runs and
+ * recording a few tests again keeps the others
+ * On replay every command must match the next recorded one, request body included; reads and element lookups
+ * repeated more or less often than when recording are tolerated, anything else fails the test with the exact command
+ * that diverged
+ */
+public class DriverCassette {
+    private static final Logger logger = LoggerFactory.getLogger(DriverCassette.class);
+    private static final String RECORD = "record";
+    private static final String REPLAY = "replay";
+    private static final String HTTP = "http";
+    private static final String ADB = "adb";
+    private static final String ENTRY_SUFFIX = ".json";
+    private static final int MAX_DESCRIBED_BODY = 300;
+
+    // Tests recorded in this run, written to the cassette by close()
+    private static final Map<String, List<Interaction>> recorded = new LinkedHashMap<>();
+    private static final List<String> divergences = new ArrayList<>();
+    private static ZipFile replaySource;
+    private static int replayedTests;
+
+    /**
+     * One recorded driver command or adb command
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    static final class Interaction {
+        public String kind;
+        // HTTP method; null for adb
+        public String method;
+        // Request path, or the adb arguments without the device selection
+        public String path;
+        public String request;
+        public int status;
+        public String response;
+        public long millis;
+    }
+
+    /**
+     * A command that does not match the recording
+     */
+    private static final class Divergence extends RuntimeException {
+        private Divergence(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Recorded or replayed interactions of the running test
+     */
+    static final class Flow {
+        private final String name;
+        private final List<Interaction> interactions;
+        private int next;
+        private Interaction last;
+        private int repeated;
+        private int skipped;
+        private boolean diverged;
+        private String message;
+
+        Flow(String name, List<Interaction> interactions) {
+            this.name = name;
+            this.interactions = interactions;
+        }
+
+        /**
+         * Find the recorded answer to a command
+         */
+        Interaction serve(Interaction actual) {
+            if (diverged) {
+                throw new Divergence("Replay of " + name + " stopped at its first divergence");
+            }
+            while (next < interactions.size()) {
+                Interaction expected = interactions.get(next);
+                if (matches(expected, actual)) {
+                    next++;
+                    last = expected;
+                    return expected;
+                }
+                // The recording polled more often than this run
+                if (last != null && isPoll(expected) && matches(last, expected)) {
+                    next++;
+                    skipped++;
+                    continue;
+                }
+                break;
+            }
+            // This run polls more often than the recording
+            if (last != null && isPoll(actual) && matches(last, actual)) {
+                repeated++;
+                return last;
+            }
+            diverged = true;
+            message = next < interactions.size()
+                    ? String.format("Replay of %s diverged at command %d of %d: expected %s but the test sent %s",
+                            name, next + 1, interactions.size(), describe(interactions.get(next)), describe(actual))
+                    : String.format("Replay of %s diverged after all %d recorded commands: the test sent %s",
+                            name, interactions.size(), describe(actual));
+            addDivergence(message);
+            throw new Divergence(message);
+        }
+    }
+
+    /**
+     * Check if the driver commands of the tests are recorded into the cassette
+     * @return true when cassette.mode=record
+     */
+    public static boolean isRecording() {
+        return RECORD.equalsIgnoreCase(ConfigManager.getCassetteMode());
+    }
+
+    /**
+     * Check if the driver commands of the tests are answered from the cassette instead of a device
+     * @return true when cassette.mode=replay
+     */
+    public static boolean isReplaying() {
+        return REPLAY.equalsIgnoreCase(ConfigManager.getCassetteMode());
+    }
+
+    /**
+     * Check if commands are recorded or replayed
+     * State kept across tests (verified shortcuts, preferred text entry strategies, learned timeouts and locators)
+     * is not used then, so a test sends the same commands however the run or the cache looked when it was recorded
+     * @return true when cassette.mode is record or replay
+     */
+    public static boolean isActive() {
+        return isRecording() || isReplaying();
+    }
+
+    /**
+     * Start recording or replaying a test in the current TestContext; does nothing unless a cassette mode is set
+     * @param test Test name, with data provider parameters, e.g. "RegistrationTest#run[registration#12]"
+     */
+    public static void startFlow(String test) {
+        if (!isActive()) {
+            return;
+        }
+        TestContext.current().put(Flow.class, new Flow(test, isReplaying() ? load(test) : new ArrayList<>()));
+    }
+
+    /**
+     * Get the divergence of the test replayed in the current TestContext, including one the test caught and ignored
+     * @return divergence message, or null when the replay matches so far or nothing is replayed
+     */
+    public static String getFlowDivergence() {
+        Flow flow = getFlow();
+        return flow != null && isReplaying() ? flow.message : null;
+    }
+
+    /**
+     * End the test of the current TestContext
+     * Recorded commands are kept for close(); on replay, recorded commands the test did not send are a divergence
+     * @throws RuntimeException when the replayed test ended before sending all recorded commands
+     */
+    public static void endFlow() {
+        TestContext context = TestContext.peek();
+        Flow flow = context != null ? context.get(Flow.class) : null;
+        if (flow == null) {
+            return;
+        }
+        context.remove(Flow.class);
+        if (isRecording()) {
+            synchronized (DriverCassette.class) {
+                recorded.put(flow.name, flow.interactions);
+            }
+            logger.info("Recorded {} commands of {}", flow.interactions.size(), flow.name);
+            return;
+        }
+        synchronized (DriverCassette.class) {
+            replayedTests++;
+        }
+        if (!flow.diverged && flow.next < flow.interactions.size()) {
+            String message = String.format("Replay of %s diverged at command %d of %d: expected %s but the test ended",
+                    flow.name, flow.next + 1, flow.interactions.size(), describe(flow.interactions.get(flow.next)));
+            addDivergence(message);
+            throw new Divergence(message);
+        } else if (!flow.diverged) {
+            logger.info("Replayed {} commands of {} ({} repeated polls, {} skipped polls)", flow.interactions.size(),
+                    flow.name, flow.repeated, flow.skipped);
+        }
+    }
+
+    /**
+     * Filter for the Appium client configuration that records every command of the running test
+     * @return Filter passing commands on to the server
+     */
+    public static Filter recordFilter() {
+        return next -> request -> {
+            long start = System.nanoTime();
+            HttpResponse response = next.execute(request);
+            Flow flow = getFlow();
+            if (flow != null) {
+                String body = Contents.string(response);
+                // The codec reads the content again
+                response.setContent(Contents.utf8String(body));
+                Interaction interaction = toInteraction(request);
+                interaction.status = response.getStatus();
+                interaction.response = body;
+                interaction.millis = (System.nanoTime() - start) / 1_000_000;
+                flow.interactions.add(interaction);
+            }
+            return response;
+        };
+    }
+
+    /**
+     * Filter for the Appium client configuration that answers every command from the cassette
+     * @return Filter that never reaches a server
+     */
+    public static Filter replayFilter() {
+        return next -> request -> {
+            Flow flow = getFlow();
+            if (flow == null) {
+                throw new IllegalStateException("Driver command outside of a replayed test: " + request.getMethod() + " " + request.getUri());
+            }
+            Interaction served;
+            try {
+                served = flow.serve(toInteraction(request));
+            } catch (Divergence e) {
+                // An error response fails the command with the divergence as its message, without client retries
+                ObjectNode error = Json.MAPPER.createObjectNode();
+                error.putObject("value").put("error", "unknown error").put("message", e.getMessage()).put("stacktrace", "");
+                return new HttpResponse()
+                        .setStatus(500)
+                        .setHeader("Content-Type", "application/json; charset=utf-8")
+                        .setContent(Contents.utf8String(error.toString()));
+            }
+            pause(served);
+            return new HttpResponse()
+                    .setStatus(served.status)
+                    .setHeader("Content-Type", "application/json; charset=utf-8")
+                    .setContent(Contents.utf8String(served.response));
+        };
+    }
+
+    /**
+     * Record the output of an adb command run by the current test
+     * @param command adb command line
+     * @param output Command output
+     */
+    public static void recordAdb(List<String> command, String output) {
+        Flow flow = isRecording() ? getFlow() : null;
+        if (flow != null) {
+            Interaction interaction = toAdbInteraction(command);
+            interaction.response = output;
+            flow.interactions.add(interaction);
+        }
+    }
+
+    /**
+     * Answer an adb command from the cassette
+     * Commands outside a test, e.g. from background samplers, get no output
+     * @param command adb command line
+     * @return recorded output
+     */
+    public static String replayAdb(List<String> command) {
+        Flow flow = getFlow();
+        if (flow == null) {
+            logger.debug("No recorded output for adb command outside a replayed test: {}", command);
+            return "";
+        }
+        Interaction served = flow.serve(toAdbInteraction(command));
+        pause(served);
+        return served.response;
+    }
+
+    /**
+     * Write the tests recorded in this run into the cassette, keeping the other tests already in it, or log the
+     * replay summary
+     */
+    public static synchronized void close() {
+        if (isReplaying()) {
+            closeReplaySource();
+            if (replayedTests > 0) {
+                if (divergences.isEmpty()) {
+                    logger.info("Replayed {} tests from {} without divergence", replayedTests, ConfigManager.getCassetteFile());
+                } else {
+                    logger.error("Replayed {} tests from {}, {} diverged:\n{}", replayedTests, ConfigManager.getCassetteFile(),
+                            divergences.size(), String.join("\n", divergences));
+                }
+            }
+            replayedTests = 0;
+            divergences.clear();
+            return;
+        }
+        if (recorded.isEmpty()) {
+            return;
+        }
+        File cassette = new File(ConfigManager.getCassetteFile());
+        File temporary = new File(cassette.getPath() + ".tmp");
+        if (cassette.getParentFile() != null) {
+            cassette.getParentFile().mkdirs();
+        }
+        try {
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(temporary))) {
+                for (Map.Entry<String, List<Interaction>> test : recorded.entrySet()) {
+                    out.putNextEntry(new ZipEntry(test.getKey() + ENTRY_SUFFIX));
+                    out.write(Json.MAPPER.writeValueAsBytes(test.getValue()));
+                    out.closeEntry();
+                }
+                int kept = cassette.exists() ? copyOtherTests(cassette, out) : 0;
+                logger.info("Recorded {} tests into {} ({} kept from earlier recordings)", recorded.size(), cassette, kept);
+            }
+            Files.move(temporary.toPath(), cassette.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.error("Failed to write driver cassette {}", cassette, e);
+        } finally {
+            recorded.clear();
+        }
+    }
+
+    private static int copyOtherTests(File cassette, ZipOutputStream out) throws IOException {
+        int kept = 0;
+        try (ZipFile previous = new ZipFile(cassette)) {
+            Enumeration<? extends ZipEntry> entries = previous.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String test = entry.getName().substring(0, entry.getName().length() - ENTRY_SUFFIX.length());
+                if (recorded.containsKey(test)) {
+                    continue;
+                }
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                try (InputStream in = previous.getInputStream(entry)) {
+                    in.transferTo(out);
+                }
+                out.closeEntry();
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Read a test's interactions from the cassette
+     */
+    private static synchronized List<Interaction> load(String test) {
+        String file = ConfigManager.getCassetteFile();
+        try {
+            if (replaySource == null) {
+                replaySource = new ZipFile(file);
+            }
+            ZipEntry entry = replaySource.getEntry(test + ENTRY_SUFFIX);
+            if (entry == null) {
+                throw new RuntimeException("Failed to replay " + test + ": it was not recorded in " + file);
+            }
+            try (InputStream in = replaySource.getInputStream(entry)) {
+                return Json.MAPPER.readValue(in, new TypeReference<List<Interaction>>() { });
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read driver cassette " + file, e);
+        }
+    }
+
+    private static void closeReplaySource() {
+        if (replaySource != null) {
+            try {
+                replaySource.close();
+            } catch (IOException e) {
+                logger.debug("Could not close driver cassette", e);
+            }
+            replaySource = null;
+        }
+    }
+
+    private static Flow getFlow() {
+        TestContext context = TestContext.peek();
+        return context != null ? context.get(Flow.class) : null;
+    }
+
+    private static Interaction toInteraction(HttpRequest request) {
+        Interaction interaction = new Interaction();
+        interaction.kind = HTTP;
+        interaction.method = request.getMethod().toString();
+        interaction.path = request.getUri();
+        String body = Contents.string(request);
+        interaction.request = body.isEmpty() ? null : compact(body);
+        return interaction;
+    }
+
+    /**
+     * Strip the pretty printing of the client's JSON bodies
+     */
+    private static String compact(String body) {
+        try {
+            return Json.MAPPER.readTree(body).toString();
+        } catch (IOException e) {
+            return body;
+        }
+    }
+
+    private static Interaction toAdbInteraction(List<String> command) {
+        // Drop "adb -s <serial>" so recordings replay regardless of the device they were made on
+        int first = command.size() > 2 && "-s".equals(command.get(1)) ? 3 : 1;
+        Interaction interaction = new Interaction();
+        interaction.kind = ADB;
+        interaction.path = String.join(" ", command.subList(Math.min(first, command.size()), command.size()));
+        return interaction;
+    }
+
+    /**
+     * Compare two commands; request bodies are compared as JSON, and new session requests only by path, since
+     * capabilities differ between devices
+     */
+    private static boolean matches(Interaction expected, Interaction actual) {
+        if (!expected.kind.equals(actual.kind) || !String.valueOf(expected.method).equals(String.valueOf(actual.method))
+                || !expected.path.equals(actual.path)) {
+            return false;
+        }
+        if (HTTP.equals(expected.kind) && "/session".equals(expected.path)) {
+            return true;
+        }
+        if (expected.request == null || actual.request == null) {
+            return expected.request == actual.request;
+        }
+        try {
+            JsonNode expectedBody = Json.MAPPER.readTree(expected.request);
+            return expectedBody.equals(Json.MAPPER.readTree(actual.request));
+        } catch (IOException e) {
+            return expected.request.equals(actual.request);
+        }
+    }
+
+    /**
+     * Check if a command only reads state, so sending it more or fewer times than when recording changes nothing:
+     * GET requests and element lookups, which waits repeat until the element appears
+     */
+    private static boolean isPoll(Interaction interaction) {
+        if (!HTTP.equals(interaction.kind)) {
+            return false;
+        }
+        return "GET".equals(interaction.method)
+                || "POST".equals(interaction.method) && (interaction.path.endsWith("/element") || interaction.path.endsWith("/elements"));
+    }
+
+    private static String describe(Interaction interaction) {
+        StringBuilder text = new StringBuilder();
+        text.append(ADB.equals(interaction.kind) ? "adb" : interaction.method).append(' ').append(interaction.path);
+        if (interaction.request != null) {
+            text.append(' ').append(interaction.request.length() > MAX_DESCRIBED_BODY
+                    ? interaction.request.substring(0, MAX_DESCRIBED_BODY) + "..." : interaction.request);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Get the divergences found since the last close()
+     * @return divergence messages
+     */
+    static synchronized List<String> getDivergences() {
+        return new ArrayList<>(divergences);
+    }
+
+    private static synchronized void addDivergence(String message) {
+        divergences.add(message);
+        logger.error(message);
+    }
+
+    /**
+     * Wait as long as the server took for the recorded command when cassette.timing=original
+     */
+    private static void pause(Interaction served) {
+        if (served.millis <= 0 || !"original".equalsIgnoreCase(ConfigManager.getCassetteTiming())) {
+            return;
+        }
+        try {
+            Thread.sleep(served.millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
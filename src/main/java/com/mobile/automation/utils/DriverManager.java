@@ -1,24 +1,33 @@
 package com.mobile.automation.utils;
 
 import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.context.TestContext;
+import io.appium.java_client.AppiumClientConfig;
 import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.InteractsWithApps;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.options.UiAutomator2Options;
+import org.openqa.selenium.remote.http.Filter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Driver Manager to handle Appium driver initialization and management
- * Implements ThreadLocal to support parallel execution
+ * Keeps the session in the TestContext of the running test to support parallel execution
  */
 public class DriverManager {
     private static final Logger logger = LoggerFactory.getLogger(DriverManager.class);
-    private static final ThreadLocal<AppiumDriver> driver = new ThreadLocal<>();
+    private static final String DEFAULT_DEVICE = "-";
+    
+    // Sessions kept between tests when session.reuse=true, by device serial
+    private static final Map<String, AppiumDriver> parkedSessions = new ConcurrentHashMap<>();
     
     /**
      * Initialize Android driver with capabilities
@@ -27,37 +36,43 @@ public class DriverManager {
         logger.info("Initializing Android driver...");
         
         try {
+            // A replayed session needs neither a device nor a server
+            if (DriverCassette.isReplaying()) {
+                initializeReplayDriver();
+                return;
+            }
+            
+            // Target the device leased from the pool, if any
+            String deviceSerial = DevicePool.getCurrentDevice();
+            String serverUrlValue = getServerUrl(deviceSerial);
+            if (isSessionReuseEnabled() && reuseParkedSession(deviceSerial, serverUrlValue)) {
+                return;
+            }
+            
             // Verify Appium server is running
-            if (!isAppiumServerRunning()) {
-                throw new RuntimeException("Appium server is not running at: " + ConfigManager.getAppiumServerUrl());
+            if (!AppiumServerManager.isServerResponding(serverUrlValue)) {
+                throw new RuntimeException("Appium server is not running at: " + serverUrlValue);
             }
             
             UiAutomator2Options options = new UiAutomator2Options();
             options.setPlatformName(ConfigManager.getPlatformName());
             options.setDeviceName(ConfigManager.getDeviceName());
+            if (deviceSerial != null) {
+                options.setUdid(deviceSerial);
+            }
             
-            // Configure app launch strategy
-            String appPath = ConfigManager.getAppPath();
-            if (appPath != null && !appPath.trim().isEmpty()) {
-                File appFile = new File(appPath);
-                if (appFile.exists()) {
-                    logger.info("Setting app path: {}", appFile.getAbsolutePath());
-                    options.setApp(appFile.getAbsolutePath());
-                    
-                    // Also set package and activity for better control
-                    options.setAppPackage(ConfigManager.getAppPackage());
-                    options.setAppActivity(ConfigManager.getAppActivity());
-                } else {
-                    logger.warn("App file not found at path: {}. Using package/activity only.", appPath);
-                    options.setAppPackage(ConfigManager.getAppPackage());
-                    options.setAppActivity(ConfigManager.getAppActivity());
-                }
-            } else {
-                logger.info("No app path provided. Using package/activity.");
-                options.setAppPackage(ConfigManager.getAppPackage());
-                options.setAppActivity(ConfigManager.getAppActivity());
+            // Give every device its own ports on the server side
+            if (ConfigManager.isManagedAppiumServerEnabled()) {
+                options.setSystemPort(AppiumServerManager.getSystemPort(deviceSerial));
+                options.setChromedriverPort(AppiumServerManager.getChromedriverPort(deviceSerial));
             }
             
+            // Only set up what the device is still missing
+            CapabilityNegotiator.Profile profile = CapabilityNegotiator.negotiate(deviceSerial);
+            profile.applyTo(options);
+            options.setAppPackage(ConfigManager.getAppPackage());
+            options.setAppActivity(ConfigManager.getAppActivity());
+            
             // Set automation engine
             options.setAutomationName(ConfigManager.getAutomationName());
             
@@ -68,10 +83,9 @@ public class DriverManager {
             
             // Additional capabilities for Truecaller specifically
             options.setCapability("appium:autoGrantPermissions", true);
+            // Sessions start with the full hierarchy; pages switch to the compressed one with @UiAutomatorSettings
             options.setCapability("appium:ignoreUnimportantViews", false);
             options.setCapability("appium:disableWindowAnimation", true);
-            options.setCapability("appium:skipDeviceInitialization", false);
-            options.setCapability("appium:skipServerInstallation", true);
             options.setCapability("appium:autoLaunch", true);
             options.setCapability("appPackage", "com.truecaller");
             options.setCapability("appActivity", "com.truecaller.ui.TruecallerInit");
@@ -80,25 +94,41 @@ public class DriverManager {
             options.setCapability("appium:uiautomator2ServerLaunchTimeout", 60000);
             options.setCapability("appium:uiautomator2ServerInstallTimeout", 60000);
             
-            logger.info("Connecting to Appium server at: {}", ConfigManager.getAppiumServerUrl());
+            logger.info("Connecting to Appium server at: {}", serverUrlValue);
             logger.info("App Package: {}", ConfigManager.getAppPackage());
             logger.info("App Activity: {}", ConfigManager.getAppActivity());
             logger.info("Device Name: {}", ConfigManager.getDeviceName());
+            logger.info("Device Serial: {}", deviceSerial != null ? deviceSerial : "default");
             
-            URL serverUrl = new URL(ConfigManager.getAppiumServerUrl());
-            AndroidDriver androidDriver = new AndroidDriver(serverUrl, options);
+            URL serverUrl = new URL(serverUrlValue);
+            long sessionStart = System.currentTimeMillis();
+            Filter commandFilter = getCommandFilter();
+            AndroidDriver androidDriver = commandFilter != null
+                    ? new AndroidDriver(AppiumClientConfig.defaultConfig().baseUrl(serverUrl).withFilter(commandFilter), options)
+                    : new AndroidDriver(serverUrl, options);
+            RunMetrics.SESSION_CREATION.observe((System.currentTimeMillis() - sessionStart) / 1000.0);
+            logger.info("Session created in {} ms with capability profile {}", System.currentTimeMillis() - sessionStart, profile);
+            StartupTimer.markFirstCommand();
+            CapabilityNegotiator.recordSessionCreated(deviceSerial);
+            SessionReaper.register(serverUrlValue, androidDriver.getSessionId().toString(), deviceSerial);
             
             // Set timeouts
             androidDriver.manage().timeouts().implicitlyWait(Duration.ofSeconds(ConfigManager.getImplicitWait()));
             
-            driver.set(androidDriver);
+            TestContext.current().setDriver(androidDriver);
             logger.info("Android driver initialized successfully");
             
+            // Sample app performance in the background for the lifetime of the session
+            PerformanceSampler.start();
+            
+            // Keep the app's recent logcat lines for this test
+            LogcatStream.startCapture(deviceSerial);
+            
             // Wait a bit for app to fully load
             Thread.sleep(3000);
             
         } catch (MalformedURLException e) {
-            logger.error("Invalid Appium server URL: {}", ConfigManager.getAppiumServerUrl(), e);
+            logger.error("Invalid Appium server URL", e);
             throw new RuntimeException("Failed to initialize driver due to invalid server URL", e);
         } catch (Exception e) {
             logger.error("Failed to initialize Android driver", e);
@@ -107,22 +137,129 @@ public class DriverManager {
     }
     
     /**
-     * Check if Appium server is running
+     * Start a session answered from the driver cassette of the current test
+     * The new session request is matched by path only, so the capabilities here need not match the recording
      */
-    private static boolean isAppiumServerRunning() {
+    private static void initializeReplayDriver() throws MalformedURLException {
+        UiAutomator2Options options = new UiAutomator2Options();
+        options.setPlatformName(ConfigManager.getPlatformName());
+        options.setAutomationName(ConfigManager.getAutomationName());
+        AndroidDriver androidDriver = new AndroidDriver(AppiumClientConfig.defaultConfig()
+                .baseUrl(new URL(ConfigManager.getAppiumServerUrl())).withFilter(getCommandFilter()), options);
+        androidDriver.manage().timeouts().implicitlyWait(Duration.ofSeconds(ConfigManager.getImplicitWait()));
+        TestContext.current().setDriver(androidDriver);
+        logger.info("Replaying session {} from driver cassette", androidDriver.getSessionId());
+    }
+    
+    /**
+     * Combine the HTTP filters the driver's commands go through
+     * @return trace and cassette filters as enabled, or null for none
+     */
+    private static Filter getCommandFilter() {
+        Filter filter = TraceRecorder.isEnabled() ? TraceRecorder.driverCommandFilter() : null;
+        Filter cassette = DriverCassette.isReplaying() ? DriverCassette.replayFilter()
+                : DriverCassette.isRecording() ? DriverCassette.recordFilter() : null;
+        if (cassette != null) {
+            filter = filter != null ? filter.andThen(cassette) : cassette;
+        }
+        return filter;
+    }
+    
+    /**
+     * Check if sessions are parked for reuse; never while recording or replaying, where every test needs its own
+     * session in the cassette
+     * @return true when session.reuse=true and no cassette mode is set
+     */
+    private static boolean isSessionReuseEnabled() {
+        return ConfigManager.isSessionReuseEnabled() && !DriverCassette.isRecording() && !DriverCassette.isReplaying();
+    }
+    
+    /**
+     * Hand the session parked for a device to the current test, with the app reset as a new session would have it
+     * @param deviceSerial Device serial, or null for the only connected device
+     * @param serverUrl Appium server URL of the session
+     * @return true when a parked session was reused, false when a new session is needed
+     */
+    private static boolean reuseParkedSession(String deviceSerial, String serverUrl) {
+        AppiumDriver parked = parkedSessions.remove(deviceSerial != null ? deviceSerial : DEFAULT_DEVICE);
+        if (parked == null) {
+            return false;
+        }
+        String sessionId = parked.getSessionId().toString();
+        long start = System.currentTimeMillis();
         try {
-            URL serverUrl = new URL(ConfigManager.getAppiumServerUrl() + "/status");
-            java.net.HttpURLConnection connection = (java.net.HttpURLConnection) serverUrl.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-            
-            int responseCode = connection.getResponseCode();
-            return responseCode == 200;
-        } catch (Exception e) {
-            logger.warn("Appium server status check failed: {}", e.getMessage());
+            // Same clean app state noReset=false gives a new session
+            String appPackage = ConfigManager.getAppPackage();
+            ((InteractsWithApps) parked).terminateApp(appPackage);
+            parked.executeScript("mobile: clearApp", Collections.singletonMap("appId", appPackage));
+            DeviceUtils.grantAppPermissions(deviceSerial);
+            ((InteractsWithApps) parked).activateApp(appPackage);
+            parked.manage().timeouts().implicitlyWait(Duration.ofSeconds(ConfigManager.getImplicitWait()));
+        } catch (RuntimeException e) {
+            logger.warn("Parked session {} is no longer usable, creating a new one", sessionId, e);
+            SessionReaper.unregister(sessionId);
+            try {
+                parked.quit();
+            } catch (RuntimeException quitError) {
+                logger.debug("Could not quit unusable session {}", sessionId, quitError);
+            }
             return false;
         }
+        SessionReaper.register(serverUrl, sessionId, deviceSerial);
+        TestContext.current().setDriver(parked);
+        PerformanceSampler.start();
+        LogcatStream.startCapture(deviceSerial);
+        logger.info("Reused session {} in {} ms", sessionId, System.currentTimeMillis() - start);
+        return true;
+    }
+    
+    /**
+     * Keep the current test's session for the next test on the same device instead of quitting it
+     * @return true when the session was parked, false when one is already parked for the device
+     */
+    private static boolean parkSession(TestContext context, AppiumDriver driver) {
+        String serial = context.getDeviceSerial();
+        if (driver.getSessionId() == null || parkedSessions.putIfAbsent(serial != null ? serial : DEFAULT_DEVICE, driver) != null) {
+            return false;
+        }
+        PerformanceSampler.stop();
+        SessionReaper.park(driver.getSessionId().toString());
+        context.setDriver(null);
+        logger.info("Parked session {} for reuse on device {}", driver.getSessionId(), serial != null ? serial : "default");
+        return true;
+    }
+    
+    /**
+     * Quit all parked sessions
+     */
+    public static void quitParkedSessions() {
+        for (String serial : parkedSessions.keySet()) {
+            AppiumDriver parked = parkedSessions.remove(serial);
+            if (parked == null) {
+                continue;
+            }
+            String sessionId = parked.getSessionId().toString();
+            try {
+                parked.quit();
+                logger.info("Quit parked session {}", sessionId);
+            } catch (RuntimeException e) {
+                logger.warn("Error while quitting parked session {}", sessionId, e);
+            } finally {
+                SessionReaper.unregister(sessionId);
+            }
+        }
+    }
+    
+    /**
+     * Get the Appium server a device's session should use
+     * @param deviceSerial Device serial, or null for the only connected device
+     * @return managed server URL when appium.server.managed=true, otherwise appium.server.url
+     */
+    private static String getServerUrl(String deviceSerial) {
+        if (ConfigManager.isManagedAppiumServerEnabled()) {
+            return AppiumServerManager.getServerUrl(deviceSerial);
+        }
+        return ConfigManager.getAppiumServerUrl();
     }
     
     /**
@@ -130,7 +267,8 @@ public class DriverManager {
      * @return AppiumDriver instance
      */
     public static AppiumDriver getDriver() {
-        AppiumDriver currentDriver = driver.get();
+        TestContext context = TestContext.peek();
+        AppiumDriver currentDriver = context != null ? context.getDriver() : null;
         if (currentDriver == null) {
             logger.error("Driver is not initialized. Call initializeDriver() first.");
             throw new IllegalStateException("Driver is not initialized");
@@ -139,19 +277,28 @@ public class DriverManager {
     }
     
     /**
-     * Quit the driver and remove from ThreadLocal
+     * Quit the driver and remove it from the TestContext
+     * With session.reuse=true the session is parked for the next test on the same device instead
      */
     public static void quitDriver() {
-        AppiumDriver currentDriver = driver.get();
+        TestContext context = TestContext.peek();
+        AppiumDriver currentDriver = context != null ? context.getDriver() : null;
         if (currentDriver != null) {
+            if (isSessionReuseEnabled() && parkSession(context, currentDriver)) {
+                return;
+            }
             try {
                 logger.info("Quitting driver...");
+                PerformanceSampler.stop();
                 currentDriver.quit();
                 logger.info("Driver quit successfully");
             } catch (Exception e) {
                 logger.error("Error while quitting driver", e);
             } finally {
-                driver.remove();
+                if (currentDriver.getSessionId() != null) {
+                    SessionReaper.unregister(currentDriver.getSessionId().toString());
+                }
+                context.setDriver(null);
             }
         }
     }
@@ -161,7 +308,8 @@ public class DriverManager {
      * @return true if driver is initialized, false otherwise
      */
     public static boolean isDriverInitialized() {
-        return driver.get() != null;
+        TestContext context = TestContext.peek();
+        return context != null && context.getDriver() != null;
     }
 }
 
@@ -0,0 +1,129 @@
+package com.mobile.automation.utils;
+
+import com.mobile.automation.context.TestContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times a test method and its named steps for latency budgets and baselines
+ * A step lasts from its start until the next step starts or the test method ends
+ * The timer of the running test is kept in its TestContext; without one, marking steps does nothing
+ */
+public final class FlowTimer {
+    private final String flow;
+    private final long budgetMillis;
+    private final long startNanos = System.nanoTime();
+    private final List<Step> steps = new ArrayList<>();
+    private final Map<String, Integer> stepCounts = new HashMap<>();
+    private long totalMillis = -1;
+
+    /**
+     * Duration of one named step
+     */
+    public static final class Step {
+        private final String name;
+        private final long budgetMillis;
+        private final long startNanos;
+        private long millis = -1;
+
+        private Step(String name, long budgetMillis, long startNanos) {
+            this.name = name;
+            this.budgetMillis = budgetMillis;
+            this.startNanos = startNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getBudgetMillis() {
+            return budgetMillis;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+    }
+
+    private FlowTimer(String flow, long budgetMillis) {
+        this.flow = flow;
+        this.budgetMillis = budgetMillis;
+    }
+
+    /**
+     * Start timing a test method in the current TestContext
+     * @param flow Flow name, e.g. "RegistrationTest#editPhoneNumber"
+     * @param budgetMillis Budget of the whole flow, 0 for none
+     */
+    public static void start(String flow, long budgetMillis) {
+        TestContext.current().put(FlowTimer.class, new FlowTimer(flow, budgetMillis));
+    }
+
+    /**
+     * End the running step of the current test, if any, and start the next
+     * A name used again in the same test gets a counter, e.g. "Entering phone (2)"
+     * @param name Step name
+     * @param budgetMillis Budget of the step, 0 for none
+     */
+    public static void step(String name, long budgetMillis) {
+        TestContext context = TestContext.peek();
+        FlowTimer timer = context != null ? context.get(FlowTimer.class) : null;
+        if (timer == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        timer.endStep(now);
+        int count = timer.stepCounts.merge(name, 1, Integer::sum);
+        timer.steps.add(new Step(count > 1 ? name + " (" + count + ")" : name, budgetMillis, now));
+    }
+
+    /**
+     * Stop timing the current test and remove its timer from the TestContext
+     * @return the finished timer, or null when the test was not timed
+     */
+    public static FlowTimer finish() {
+        TestContext context = TestContext.peek();
+        FlowTimer timer = context != null ? context.get(FlowTimer.class) : null;
+        if (timer == null) {
+            return null;
+        }
+        context.remove(FlowTimer.class);
+        long now = System.nanoTime();
+        timer.endStep(now);
+        timer.totalMillis = (now - timer.startNanos) / 1_000_000;
+        return timer;
+    }
+
+    private void endStep(long now) {
+        if (!steps.isEmpty()) {
+            Step last = steps.get(steps.size() - 1);
+            if (last.millis < 0) {
+                last.millis = (now - last.startNanos) / 1_000_000;
+            }
+        }
+    }
+
+    public String getFlow() {
+        return flow;
+    }
+
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    /**
+     * Get the duration of the whole test method
+     * @return milliseconds, -1 until finished
+     */
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public List<Step> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+}
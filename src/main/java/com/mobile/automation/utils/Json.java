@@ -0,0 +1,14 @@
+package com.mobile.automation.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Shared Jackson mapper
+ * The class is initialized on first use of MAPPER, so classes that only reference it do not load Jackson at suite start
+ */
+public final class Json {
+    public static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private Json() {
+    }
+}
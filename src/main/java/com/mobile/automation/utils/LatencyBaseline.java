@@ -0,0 +1,122 @@
+package com.mobile.automation.utils;
+
+import com.mobile.automation.config.ConfigManager;
+import java.util.List;
+
+/**
+ * Rolling baseline of flow and step durations from earlier runs, used to spot latency regressions
+ * A duration is a regression when it lies above the 95% prediction interval of the recent durations and exceeds
+ * their median by more than latency.regression.tolerance, so ordinary device noise does not count
+ * Durations are stored in the cache directory and written at suite end
+ */
+public class LatencyBaseline {
+    private static final RollingSamples samples = new RollingSamples("latency-baseline.properties", "latency baseline");
+
+    /**
+     * Outcome of comparing one duration with its budget and baseline
+     */
+    public static final class Check {
+        private final String key;
+        private final long millis;
+        private final long budgetMillis;
+        private final SampleStatistics baseline;
+        private final boolean regression;
+
+        private Check(String key, long millis, long budgetMillis, SampleStatistics baseline, boolean regression) {
+            this.key = key;
+            this.millis = millis;
+            this.budgetMillis = budgetMillis;
+            this.baseline = baseline;
+            this.regression = regression;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public long getBudgetMillis() {
+            return budgetMillis;
+        }
+
+        /**
+         * Get the recent durations this one was compared with
+         * @return statistics in milliseconds, or null while there are fewer than latency.baseline.min.runs
+         */
+        public SampleStatistics getBaseline() {
+            return baseline;
+        }
+
+        public boolean isOverBudget() {
+            return budgetMillis > 0 && millis > budgetMillis;
+        }
+
+        public boolean isRegression() {
+            return regression;
+        }
+
+        public boolean isOffending() {
+            return isOverBudget() || isRegression();
+        }
+
+        /**
+         * Describe why the duration is offending
+         * @return e.g. "1840 ms, budget 1500 ms, baseline median 900 ms (n=12)"
+         */
+        public String describe() {
+            StringBuilder text = new StringBuilder().append(millis).append(" ms");
+            if (budgetMillis > 0) {
+                text.append(isOverBudget() ? ", over budget " : ", budget ").append(budgetMillis).append(" ms");
+            }
+            if (baseline != null) {
+                text.append(String.format(", baseline median %.0f ms, p95 %.0f ms (n=%d)",
+                        baseline.getMedian(), baseline.getPercentile(95), baseline.getCount()));
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * Compare a duration with its budget and the recent durations of the same flow or step
+     * @param key Flow or step key, e.g. "RegistrationTest#editPhoneNumber|Entering phone"
+     * @param millis Measured duration
+     * @param budgetMillis Budget, 0 for none
+     * @return comparison result
+     */
+    public static Check check(String key, long millis, long budgetMillis) {
+        List<Long> history = samples.get(key);
+        if (history.size() < ConfigManager.getLatencyBaselineMinRuns()) {
+            return new Check(key, millis, budgetMillis, null, false);
+        }
+        SampleStatistics baseline = new SampleStatistics(history.stream().mapToDouble(Long::doubleValue).toArray());
+        boolean regression = millis > baseline.getMean() + baseline.getPredictionMargin95()
+                && millis > baseline.getMedian() * (1 + ConfigManager.getLatencyRegressionTolerance());
+        return new Check(key, millis, budgetMillis, baseline, regression);
+    }
+
+    /**
+     * Add a duration to the baseline, dropping the oldest beyond latency.baseline.runs
+     * @param key Flow or step key
+     * @param millis Measured duration
+     */
+    public static void record(String key, long millis) {
+        samples.add(key, millis, ConfigManager.getLatencyBaselineRuns());
+    }
+
+    /**
+     * Write the baseline to the cache directory
+     */
+    public static void save() {
+        samples.save();
+    }
+
+    /**
+     * Forget the loaded baseline so it is read again from the current cache directory
+     */
+    static void reset() {
+        samples.reset();
+    }
+}
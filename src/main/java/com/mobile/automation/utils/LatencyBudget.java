@@ -0,0 +1,21 @@
+package com.mobile.automation.utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Latency budget of a test method, from the start of the test method to its end (setup and teardown excluded)
+ * Budgets of single steps are given with BaseTest.logTestStep(step, budgetMillis)
+ * Every timed flow is also compared with its baseline from earlier runs, with or without this annotation
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface LatencyBudget {
+
+    /**
+     * Milliseconds the test method may take
+     */
+    long millis();
+}
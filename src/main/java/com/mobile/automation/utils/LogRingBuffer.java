@@ -0,0 +1,85 @@
+package com.mobile.automation.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded buffer of the most recent log lines, stored as raw bytes in one circular array
+ * Lines are only decoded to strings when the buffer is dumped
+ */
+public class LogRingBuffer {
+    private final byte[] data;
+    private final long[] lineStarts;
+    private final int[] lineLengths;
+    private int oldestLine;
+    private int lineCount;
+    private long bytesWritten;
+    private long droppedLines;
+
+    /**
+     * @param capacityBytes Total bytes kept across all lines
+     * @param maxLines Maximum number of lines kept
+     */
+    public LogRingBuffer(int capacityBytes, int maxLines) {
+        this.data = new byte[capacityBytes];
+        this.lineStarts = new long[maxLines];
+        this.lineLengths = new int[maxLines];
+    }
+
+    /**
+     * Append one line, evicting the oldest lines when the buffer is full
+     * @param source Buffer holding the line bytes, without the line terminator
+     * @param offset Start of the line in source
+     * @param length Length of the line; lines longer than the buffer keep only their start
+     */
+    public synchronized void append(byte[] source, int offset, int length) {
+        length = Math.min(length, data.length);
+        while (lineCount > 0 && (lineCount == lineStarts.length
+                || lineStarts[oldestLine] < bytesWritten + length - data.length)) {
+            oldestLine = (oldestLine + 1) % lineStarts.length;
+            lineCount--;
+            droppedLines++;
+        }
+        int position = (int) (bytesWritten % data.length);
+        int firstPart = Math.min(length, data.length - position);
+        System.arraycopy(source, offset, data, position, firstPart);
+        System.arraycopy(source, offset + firstPart, data, 0, length - firstPart);
+
+        int slot = (oldestLine + lineCount) % lineStarts.length;
+        lineStarts[slot] = bytesWritten;
+        lineLengths[slot] = length;
+        lineCount++;
+        bytesWritten += length;
+    }
+
+    /**
+     * Decode the buffered lines, oldest first
+     * @return List of log lines
+     */
+    public synchronized List<String> getLines() {
+        List<String> lines = new ArrayList<>(lineCount);
+        byte[] line = new byte[0];
+        for (int i = 0; i < lineCount; i++) {
+            int slot = (oldestLine + i) % lineStarts.length;
+            int length = lineLengths[slot];
+            if (line.length < length) {
+                line = new byte[length];
+            }
+            int position = (int) (lineStarts[slot] % data.length);
+            int firstPart = Math.min(length, data.length - position);
+            System.arraycopy(data, position, line, 0, firstPart);
+            System.arraycopy(data, 0, line, firstPart, length - firstPart);
+            lines.add(new String(line, 0, length, StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+
+    /**
+     * Get the number of lines evicted to make room for newer ones
+     * @return dropped line count
+     */
+    public synchronized long getDroppedLines() {
+        return droppedLines;
+    }
+}
@@ -0,0 +1,236 @@
+package com.mobile.automation.utils;
+
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.context.TestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Continuous logcat reader for one device
+ * A single daemon thread reads the stream in large chunks and scans the bytes for line ends and the pid column,
+ * copying only lines from the app's processes into the ring buffers of the tests currently capturing
+ * Tests keep a capture in their TestContext with startCapture() and take it back with takeCapture()
+ */
+public class LogcatStream {
+    private static final Logger logger = LoggerFactory.getLogger(LogcatStream.class);
+    private static final Map<String, LogcatStream> streams = new ConcurrentHashMap<>();
+    private static final String DEFAULT_DEVICE = "default";
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final long PID_REFRESH_MILLIS = 2000;
+
+    private final String serial;
+    private final List<LogRingBuffer> captures = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService pidRefresher;
+    private volatile int[] appPids = new int[0];
+    private Process process;
+
+    private LogcatStream(String serial) {
+        this.serial = serial;
+        this.pidRefresher = Executors.newSingleThreadScheduledExecutor(
+                VirtualThreads.newThreadFactory("logcat-pids-" + getDeviceKey(serial)));
+    }
+
+    /**
+     * Get the running logcat stream of a device, starting it on first use
+     * @param serial Device serial, or null for the only connected device
+     * @return LogcatStream for the device
+     */
+    public static LogcatStream forDevice(String serial) {
+        return streams.computeIfAbsent(getDeviceKey(serial), key -> {
+            LogcatStream stream = new LogcatStream(serial);
+            stream.start();
+            return stream;
+        });
+    }
+
+    /**
+     * Start capturing app log lines of a device into a new ring buffer kept in the current TestContext
+     * Does nothing unless logcat.capture=true
+     * @param serial Device serial, or null for the only connected device
+     */
+    public static void startCapture(String serial) {
+        if (!ConfigManager.isLogcatCaptureEnabled()) {
+            return;
+        }
+        takeCapture();
+        LogRingBuffer buffer = new LogRingBuffer(ConfigManager.getLogcatBufferBytes(), ConfigManager.getLogcatBufferLines());
+        forDevice(serial).captures.add(buffer);
+        TestContext.current().put(LogRingBuffer.class, buffer);
+    }
+
+    /**
+     * Stop the capture of the current TestContext
+     * @return LogRingBuffer with the captured lines, or null when nothing was captured
+     */
+    public static LogRingBuffer takeCapture() {
+        TestContext context = TestContext.peek();
+        LogRingBuffer buffer = context != null ? context.remove(LogRingBuffer.class) : null;
+        if (buffer == null) {
+            return null;
+        }
+        for (LogcatStream stream : streams.values()) {
+            stream.captures.remove(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Stop every logcat stream, e.g. at suite end
+     */
+    public static void stopAll() {
+        for (LogcatStream stream : streams.values()) {
+            stream.stop();
+        }
+        streams.clear();
+    }
+
+    private void start() {
+        List<String> command = new ArrayList<>();
+        command.add("adb");
+        if (serial != null) {
+            command.add("-s");
+            command.add(serial);
+        }
+        command.addAll(Arrays.asList("logcat", "-v", "threadtime", "-T", "1"));
+        try {
+            process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        } catch (IOException e) {
+            logger.warn("Could not start logcat for device {}: {}", getDeviceKey(serial), e.getMessage());
+            return;
+        }
+        pidRefresher.scheduleWithFixedDelay(this::refreshAppPids, 0, PID_REFRESH_MILLIS, TimeUnit.MILLISECONDS);
+        VirtualThreads.start("logcat-" + getDeviceKey(serial), this::readLoop);
+        logger.info("Logcat streaming started for device {}", getDeviceKey(serial));
+    }
+
+    private void stop() {
+        pidRefresher.shutdownNow();
+        if (process != null) {
+            process.destroy();
+        }
+    }
+
+    private void readLoop() {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+        // Set while dropping the rest of a line longer than the buffer
+        boolean skipping = false;
+        try (ReadableByteChannel channel = Channels.newChannel(process.getInputStream())) {
+            while (channel.read(buffer) >= 0) {
+                int end = buffer.position();
+                int lineStart = 0;
+                for (int i = 0; i < end; i++) {
+                    if (bytes[i] == '\n') {
+                        if (skipping) {
+                            skipping = false;
+                        } else {
+                            int lineEnd = i > lineStart && bytes[i - 1] == '\r' ? i - 1 : i;
+                            dispatchLine(bytes, lineStart, lineEnd - lineStart);
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+                if (skipping) {
+                    // Still inside the oversized line
+                    buffer.clear();
+                } else if (lineStart == 0 && end == bytes.length) {
+                    // A single line filled the whole buffer; keep its start and skip the rest
+                    dispatchLine(bytes, 0, end);
+                    skipping = true;
+                    buffer.clear();
+                } else {
+                    buffer.limit(end).position(lineStart);
+                    buffer.compact();
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Logcat stream for device {} closed: {}", getDeviceKey(serial), e.getMessage());
+        }
+        streams.remove(getDeviceKey(serial), this);
+    }
+
+    private void dispatchLine(byte[] bytes, int offset, int length) {
+        if (captures.isEmpty() || !isAppLine(bytes, offset, length)) {
+            return;
+        }
+        for (LogRingBuffer capture : captures) {
+            capture.append(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Check the pid column of a threadtime line ("MM-DD HH:MM:SS.mmm  PID  TID L TAG: message") without decoding it
+     */
+    private boolean isAppLine(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        int position = skipToken(bytes, skipToken(bytes, offset, end), end);
+        while (position < end && bytes[position] == ' ') {
+            position++;
+        }
+        int pid = 0;
+        boolean digits = false;
+        while (position < end && bytes[position] >= '0' && bytes[position] <= '9') {
+            pid = pid * 10 + (bytes[position++] - '0');
+            digits = true;
+        }
+        if (!digits) {
+            return false;
+        }
+        for (int appPid : appPids) {
+            if (appPid == pid) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int skipToken(byte[] bytes, int position, int end) {
+        while (position < end && bytes[position] == ' ') {
+            position++;
+        }
+        while (position < end && bytes[position] != ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    private void refreshAppPids() {
+        try {
+            List<String> command = new ArrayList<>();
+            if (serial != null) {
+                command.add("-s");
+                command.add(serial);
+            }
+            command.addAll(Arrays.asList("shell", "ps", "-A", "-o", "PID,NAME"));
+            String appPackage = ConfigManager.getAppPackage();
+            List<Integer> pids = new ArrayList<>();
+            for (String line : DeviceUtils.executeAdbCommand(command.toArray(new String[0])).split("\n")) {
+                String[] columns = line.trim().split("\\s+");
+                if (columns.length == 2 && (columns[1].equals(appPackage) || columns[1].startsWith(appPackage + ":"))) {
+                    pids.add(Integer.parseInt(columns[0]));
+                }
+            }
+            appPids = pids.stream().mapToInt(Integer::intValue).toArray();
+        } catch (Exception e) {
+            logger.debug("Could not refresh app pids: {}", e.getMessage());
+        }
+    }
+
+    private static String getDeviceKey(String serial) {
+        return serial != null ? serial : DEFAULT_DEVICE;
+    }
+}
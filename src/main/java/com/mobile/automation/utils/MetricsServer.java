@@ -0,0 +1,70 @@
+package com.mobile.automation.utils;
+
+import com.mobile.automation.config.ConfigManager;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP endpoint serving RunMetrics at /metrics in OpenMetrics text format
+ * Runs on the JDK's built-in HttpServer, so a local Prometheus or curl can watch a run without extra services
+ */
+public class MetricsServer {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsServer.class);
+    private static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+    private static HttpServer server;
+    private static ExecutorService executor;
+
+    /**
+     * Start serving /metrics on a port of the loopback interface, or of metrics.host when set; does nothing if
+     * already started
+     * @param port TCP port to listen on
+     */
+    public static synchronized void start(int port) {
+        if (server != null) {
+            return;
+        }
+        try {
+            String host = ConfigManager.getMetricsHost();
+            InetSocketAddress address = host != null && !host.trim().isEmpty()
+                    ? new InetSocketAddress(host.trim(), port)
+                    : new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+            server = HttpServer.create(address, 0);
+            server.createContext("/metrics", exchange -> {
+                byte[] body = RunMetrics.render().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            executor = Executors.newSingleThreadExecutor(VirtualThreads.newThreadFactory("metrics-server"));
+            server.setExecutor(executor);
+            server.start();
+            logger.info("Serving run metrics at http://{}:{}/metrics", server.getAddress().getHostString(),
+                    server.getAddress().getPort());
+        } catch (IOException e) {
+            server = null;
+            logger.error("Could not start metrics endpoint on port {}", port, e);
+        }
+    }
+
+    /**
+     * Stop the endpoint
+     */
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+            server = null;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.mobile.automation.utils;
+
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.context.TestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background sampler of app memory, frame and CPU statistics for one driver session
+ * Samples are taken on a dedicated daemon thread with one adb shell call per sample, so the test thread only
+ * pays for marking steps
+ */
+public class PerformanceSampler {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceSampler.class);
+    private static final String SECTION_SEPARATOR = "=====";
+    private static final long CLOCK_TICK_MILLIS = 10;
+
+    private final String appPackage;
+    private final String deviceSerial;
+    private final PerformanceTimeSeries series = new PerformanceTimeSeries();
+    private final ScheduledExecutorService executor;
+    private long lastCpuTicks = -1;
+    private long lastSampleMillis;
+
+    private PerformanceSampler(String appPackage, String deviceSerial) {
+        this.appPackage = appPackage;
+        this.deviceSerial = deviceSerial;
+        this.executor = Executors.newSingleThreadScheduledExecutor(VirtualThreads.newThreadFactory("perf-sampler-" + appPackage));
+    }
+
+    /**
+     * Start sampling the configured app package and keep the sampler in the current TestContext
+     * Does nothing unless perf.sampling=true
+     */
+    public static void start() {
+        if (!ConfigManager.isPerformanceSamplingEnabled()) {
+            return;
+        }
+        PerformanceSampler sampler = new PerformanceSampler(ConfigManager.getAppPackage(), DevicePool.getCurrentDevice());
+        DeviceUtils.executeAdbCommandOnDevice(sampler.deviceSerial, "shell", "dumpsys", "gfxinfo", sampler.appPackage, "reset");
+        long interval = ConfigManager.getPerformanceSampleIntervalMillis();
+        sampler.executor.scheduleWithFixedDelay(sampler::sample, 0, interval, TimeUnit.MILLISECONDS);
+        TestContext.current().put(PerformanceSampler.class, sampler);
+        logger.info("Performance sampling of {} started every {} ms", sampler.appPackage, interval);
+    }
+
+    /**
+     * Stop the sampler of the current TestContext; its series stays available to takeCurrent()
+     */
+    public static void stop() {
+        PerformanceSampler sampler = getCurrent();
+        if (sampler != null && !sampler.executor.isShutdown()) {
+            sampler.executor.shutdownNow();
+            logger.info("Performance sampling stopped after {} samples", sampler.series.size());
+        }
+    }
+
+    /**
+     * Attribute samples taken from now on to a named step of the current test
+     * @param name Step name
+     */
+    public static void markStep(String name) {
+        PerformanceSampler sampler = getCurrent();
+        if (sampler != null) {
+            sampler.series.startStep(name);
+        }
+    }
+
+    /**
+     * Stop the sampler of the current TestContext and remove it, returning its series
+     * @return PerformanceTimeSeries of the session, or null when sampling was not active
+     */
+    public static PerformanceTimeSeries takeCurrent() {
+        PerformanceSampler sampler = getCurrent();
+        if (sampler == null) {
+            return null;
+        }
+        stop();
+        TestContext.current().remove(PerformanceSampler.class);
+        return sampler.series;
+    }
+
+    private static PerformanceSampler getCurrent() {
+        TestContext context = TestContext.peek();
+        return context != null ? context.get(PerformanceSampler.class) : null;
+    }
+
+    private void sample() {
+        try {
+            String output = DeviceUtils.executeAdbCommandOnDevice(deviceSerial, "shell",
+                    "dumpsys meminfo " + appPackage + "; echo " + SECTION_SEPARATOR
+                            + "; dumpsys gfxinfo " + appPackage + "; echo " + SECTION_SEPARATOR
+                            + "; cat /proc/$(pidof " + appPackage + ")/stat");
+            String[] sections = output.split(SECTION_SEPARATOR);
+            if (sections.length < 3) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            series.add(now, parsePss(sections[0]), parseCpu(sections[2], now),
+                    parseCounter(sections[1], "Total frames rendered:"), parseCounter(sections[1], "Janky frames:"));
+        } catch (Exception e) {
+            logger.debug("Performance sample failed: {}", e.getMessage());
+        }
+    }
+
+    private static int parsePss(String meminfo) {
+        for (String line : meminfo.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("TOTAL PSS:")) {
+                return parseLeadingInt(trimmed.substring("TOTAL PSS:".length()));
+            }
+            if (trimmed.startsWith("TOTAL ")) {
+                return parseLeadingInt(trimmed.substring("TOTAL ".length()));
+            }
+        }
+        return 0;
+    }
+
+    private static int parseCounter(String gfxinfo, String label) {
+        for (String line : gfxinfo.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith(label)) {
+                return parseLeadingInt(trimmed.substring(label.length()));
+            }
+        }
+        return 0;
+    }
+
+    private float parseCpu(String stat, long now) {
+        int commandEnd = stat.lastIndexOf(')');
+        if (commandEnd < 0) {
+            return 0;
+        }
+        // Fields after the command name start at state (field 3); utime and stime are fields 14 and 15
+        String[] fields = stat.substring(commandEnd + 2).trim().split("\\s+");
+        if (fields.length < 13) {
+            return 0;
+        }
+        long ticks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+        float cpu = 0;
+        if (lastCpuTicks >= 0 && now > lastSampleMillis && ticks >= lastCpuTicks) {
+            cpu = (ticks - lastCpuTicks) * CLOCK_TICK_MILLIS * 100f / (now - lastSampleMillis);
+        }
+        lastCpuTicks = ticks;
+        lastSampleMillis = now;
+        return cpu;
+    }
+
+    private static int parseLeadingInt(String text) {
+        String trimmed = text.trim();
+        int end = 0;
+        while (end < trimmed.length() && Character.isDigit(trimmed.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? 0 : Integer.parseInt(trimmed.substring(0, end));
+    }
+}
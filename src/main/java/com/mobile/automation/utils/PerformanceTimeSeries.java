@@ -0,0 +1,149 @@
+package com.mobile.automation.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact time series of app performance samples for one test
+ * Samples are stored column-wise in primitive arrays; frame counters are cumulative as reported by gfxinfo
+ */
+public class PerformanceTimeSeries {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final List<String> steps = new ArrayList<>();
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int[] stepIndexes = new int[INITIAL_CAPACITY];
+    private int[] pssKb = new int[INITIAL_CAPACITY];
+    private float[] cpuPercent = new float[INITIAL_CAPACITY];
+    private int[] totalFrames = new int[INITIAL_CAPACITY];
+    private int[] jankyFrames = new int[INITIAL_CAPACITY];
+    private int size;
+
+    public PerformanceTimeSeries() {
+        steps.add("Session start");
+    }
+
+    /**
+     * Start a new named step; samples added afterwards are attributed to it
+     * @param name Step name
+     */
+    public synchronized void startStep(String name) {
+        steps.add(name);
+    }
+
+    /**
+     * Append one sample to the series
+     */
+    public synchronized void add(long timestamp, int pss, float cpu, int frames, int janky) {
+        if (size == timestamps.length) {
+            int capacity = size * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            stepIndexes = Arrays.copyOf(stepIndexes, capacity);
+            pssKb = Arrays.copyOf(pssKb, capacity);
+            cpuPercent = Arrays.copyOf(cpuPercent, capacity);
+            totalFrames = Arrays.copyOf(totalFrames, capacity);
+            jankyFrames = Arrays.copyOf(jankyFrames, capacity);
+        }
+        timestamps[size] = timestamp;
+        stepIndexes[size] = steps.size() - 1;
+        pssKb[size] = pss;
+        cpuPercent[size] = cpu;
+        totalFrames[size] = frames;
+        jankyFrames[size] = janky;
+        size++;
+    }
+
+    /**
+     * Get the number of samples collected
+     * @return sample count
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Summarize the samples of each step that has at least one sample
+     * Frame counts are the increase of the cumulative counters since the previous sample
+     * @return List of StepSummary in step order
+     */
+    public synchronized List<StepSummary> summarizeSteps() {
+        List<StepSummary> summaries = new ArrayList<>();
+        int i = 0;
+        while (i < size) {
+            int step = stepIndexes[i];
+            StepSummary summary = new StepSummary(steps.get(step));
+            double cpuTotal = 0;
+            for (; i < size && stepIndexes[i] == step; i++) {
+                summary.samples++;
+                summary.maxPssKb = Math.max(summary.maxPssKb, pssKb[i]);
+                cpuTotal += cpuPercent[i];
+                if (i > 0 && totalFrames[i] >= totalFrames[i - 1]) {
+                    summary.frames += totalFrames[i] - totalFrames[i - 1];
+                    summary.jankyFrames += jankyFrames[i] - jankyFrames[i - 1];
+                }
+            }
+            summary.averageCpuPercent = cpuTotal / summary.samples;
+            summaries.add(summary);
+        }
+        return summaries;
+    }
+
+    /**
+     * Write all samples as CSV
+     * @param file Target file
+     */
+    public synchronized void writeCsv(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writer.println("timestamp,step,pssKb,cpuPercent,totalFrames,jankyFrames");
+            for (int i = 0; i < size; i++) {
+                writer.printf("%d,\"%s\",%d,%.1f,%d,%d%n", timestamps[i], steps.get(stepIndexes[i]).replace("\"", "\"\""),
+                        pssKb[i], cpuPercent[i], totalFrames[i], jankyFrames[i]);
+            }
+        }
+    }
+
+    /**
+     * Aggregated performance of one test step
+     */
+    public static class StepSummary {
+        private final String step;
+        private int samples;
+        private int maxPssKb;
+        private double averageCpuPercent;
+        private int frames;
+        private int jankyFrames;
+
+        private StepSummary(String step) {
+            this.step = step;
+        }
+
+        public String getStep() {
+            return step;
+        }
+
+        public int getSamples() {
+            return samples;
+        }
+
+        public int getMaxPssKb() {
+            return maxPssKb;
+        }
+
+        public double getAverageCpuPercent() {
+            return averageCpuPercent;
+        }
+
+        public int getFrames() {
+            return frames;
+        }
+
+        public int getJankyFrames() {
+            return jankyFrames;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.mobile.automation.utils;
+
+import com.mobile.automation.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * The most recent measurements per key, stored as a properties file in the cache directory
+ * Loaded on first use and written by save() only when measurements were added
+ */
+public class RollingSamples {
+    private static final Logger logger = LoggerFactory.getLogger(RollingSamples.class);
+
+    private final String fileName;
+    private final String description;
+    private Map<String, Deque<Long>> samples;
+    private boolean dirty;
+
+    /**
+     * @param fileName File name in the cache directory, e.g. "latency-baseline.properties"
+     * @param description What the samples are, for the file comment and logs, e.g. "latency baseline"
+     */
+    public RollingSamples(String fileName, String description) {
+        this.fileName = fileName;
+        this.description = description;
+    }
+
+    /**
+     * Get the recent measurements of a key
+     * @param key Sample key
+     * @return measurements, oldest first; empty when there are none
+     */
+    public synchronized List<Long> get(String key) {
+        Deque<Long> history = getSamples().get(key);
+        return history != null ? new ArrayList<>(history) : Collections.emptyList();
+    }
+
+    /**
+     * Add a measurement, dropping the oldest beyond the limit
+     * @param key Sample key
+     * @param value Measurement
+     * @param limit Number of measurements to keep per key
+     */
+    public synchronized void add(String key, long value, int limit) {
+        Deque<Long> history = getSamples().computeIfAbsent(key, k -> new ArrayDeque<>());
+        history.addLast(value);
+        while (history.size() > limit) {
+            history.removeFirst();
+        }
+        dirty = true;
+    }
+
+    /**
+     * Write the samples to the cache directory if measurements were added
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+        File cacheDir = new File(ConfigManager.getCacheDir());
+        cacheDir.mkdirs();
+        Properties properties = new Properties();
+        samples.forEach((key, history) -> properties.setProperty(key,
+                history.stream().map(String::valueOf).collect(Collectors.joining(","))));
+        try (FileOutputStream fos = new FileOutputStream(new File(cacheDir, fileName))) {
+            properties.store(fos, "Recent " + description + " per key");
+            dirty = false;
+            logger.info("{} written for {} keys", description, samples.size());
+        } catch (IOException e) {
+            logger.warn("Could not write {}", description, e);
+        }
+    }
+
+    /**
+     * Drop the loaded measurements, including ones not yet saved, so the next use reloads them from the cache
+     * directory
+     */
+    public synchronized void reset() {
+        samples = null;
+        dirty = false;
+    }
+
+    private Map<String, Deque<Long>> getSamples() {
+        if (samples == null) {
+            samples = new HashMap<>();
+            File file = new File(ConfigManager.getCacheDir(), fileName);
+            if (file.exists()) {
+                Properties properties = new Properties();
+                try (FileInputStream fis = new FileInputStream(file)) {
+                    properties.load(fis);
+                    for (String key : properties.stringPropertyNames()) {
+                        Deque<Long> history = new ArrayDeque<>();
+                        Arrays.stream(properties.getProperty(key).split(","))
+                                .filter(value -> !value.isEmpty())
+                                .forEach(value -> history.addLast(Long.parseLong(value)));
+                        samples.put(key, history);
+                    }
+                } catch (IOException | NumberFormatException e) {
+                    logger.warn("Could not load {}", description, e);
+                }
+            }
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,194 @@
+package com.mobile.automation.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Live counters, gauges and histograms of the running suite, rendered in OpenMetrics text format by MetricsServer
+ * Recording is a lock-free add, so it is cheap enough for every adb call and page wait
+ */
+public class RunMetrics {
+    private static final double[] LATENCY_BUCKETS = {0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 20, 30, 60};
+    private static final double[] SESSION_BUCKETS = {1, 2.5, 5, 10, 20, 30, 60, 120};
+    private static final List<Metric> metrics = new ArrayList<>();
+
+    public static final Counter TESTS_STARTED = register(new Counter("automation_tests_started", "Tests started", "device"));
+    public static final Counter TESTS_PASSED = register(new Counter("automation_tests_passed", "Tests passed", "device"));
+    public static final Counter TESTS_FAILED = register(new Counter("automation_tests_failed", "Tests failed", "device"));
+    public static final Counter TESTS_SKIPPED = register(new Counter("automation_tests_skipped", "Tests skipped", "device"));
+    public static final Histogram SESSION_CREATION = register(new Histogram("automation_session_creation_seconds",
+            "Time to create an Appium session", SESSION_BUCKETS));
+    public static final Histogram DEVICE_ACQUIRE_WAIT = register(new Histogram("automation_device_acquire_wait_seconds",
+            "Time tests waited for a free device", LATENCY_BUCKETS));
+    public static final Histogram PAGE_WAIT = register(new Histogram("automation_page_wait_seconds",
+            "Time BasePage waited for elements", LATENCY_BUCKETS));
+    public static final Histogram SCREEN_TRANSITION = register(new Histogram("automation_screen_transition_seconds",
+            "Time from a BasePage action to the next stable screen", LATENCY_BUCKETS));
+    public static final Histogram ADB_COMMAND = register(new Histogram("automation_adb_command_seconds",
+            "adb command latency", LATENCY_BUCKETS));
+
+    static {
+        register(new Gauge("automation_devices_ready", "Prepared devices in the pool", () -> DevicePool.getReadyDevices().size()));
+        register(new Gauge("automation_devices_leased", "Devices currently leased to tests", DevicePool::getLeasedCount));
+        register(new Gauge("automation_device_queue_depth", "Tests waiting for a free device", DevicePool::getWaitingCount));
+        register(new Gauge("automation_time_to_suite_start_seconds", "Time from JVM start to suite start",
+                StartupTimer::getSecondsToSuiteStart));
+        register(new Gauge("automation_time_to_first_command_seconds", "Time from JVM start to the first session ready for commands",
+                StartupTimer::getSecondsToFirstCommand));
+    }
+
+    /**
+     * A named metric family that renders itself as OpenMetrics text
+     */
+    private abstract static class Metric {
+        protected final String name;
+        protected final String help;
+
+        private Metric(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        abstract void render(StringBuilder out);
+    }
+
+    /**
+     * Monotonic counter with one label
+     */
+    public static final class Counter extends Metric {
+        private final String label;
+        private final Map<String, LongAdder> values = new ConcurrentHashMap<>();
+
+        private Counter(String name, String help, String label) {
+            super(name, help);
+            this.label = label;
+        }
+
+        /**
+         * Add one to the counter
+         * @param labelValue Label value, or null for "default"
+         */
+        public void increment(String labelValue) {
+            values.computeIfAbsent(labelValue != null ? labelValue : "default", key -> new LongAdder()).increment();
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append("# HELP ").append(name).append(' ').append(help).append(".\n");
+            new TreeMap<>(values).forEach((labelValue, value) -> out.append(name).append("_total{").append(label)
+                    .append("=\"").append(escape(labelValue)).append("\"} ").append(value.sum()).append('\n'));
+        }
+    }
+
+    /**
+     * Histogram with fixed bucket bounds in seconds
+     */
+    public static final class Histogram extends Metric {
+        private final double[] bounds;
+        private final AtomicLongArray buckets;
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+
+        private Histogram(String name, String help, double[] bounds) {
+            super(name, help);
+            this.bounds = bounds;
+            this.buckets = new AtomicLongArray(bounds.length);
+        }
+
+        /**
+         * Record a duration measured with System.nanoTime()
+         * @param startNanos System.nanoTime() at the start of the measured work
+         */
+        public void observeSince(long startNanos) {
+            observe((System.nanoTime() - startNanos) / 1_000_000_000.0);
+        }
+
+        /**
+         * Record a value
+         * @param seconds Observed value in seconds
+         */
+        public void observe(double seconds) {
+            for (int i = 0; i < bounds.length; i++) {
+                if (seconds <= bounds[i]) {
+                    buckets.incrementAndGet(i);
+                    break;
+                }
+            }
+            count.increment();
+            sum.add(seconds);
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append("# TYPE ").append(name).append(" histogram\n");
+            out.append("# HELP ").append(name).append(' ').append(help).append(".\n");
+            long total = count.sum();
+            long cumulative = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                cumulative += buckets.get(i);
+                out.append(name).append("_bucket{le=\"").append(formatBound(bounds[i])).append("\"} ")
+                        .append(Math.min(cumulative, total)).append('\n');
+            }
+            out.append(name).append("_bucket{le=\"+Inf\"} ").append(total).append('\n');
+            out.append(name).append("_sum ").append(String.format(Locale.ROOT, "%.6f", sum.sum())).append('\n');
+            out.append(name).append("_count ").append(total).append('\n');
+        }
+    }
+
+    /**
+     * Gauge read when the metrics are rendered
+     */
+    private static final class Gauge extends Metric {
+        private final Supplier<Number> value;
+
+        private Gauge(String name, String help, Supplier<Number> value) {
+            super(name, help);
+            this.value = value;
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append("# TYPE ").append(name).append(" gauge\n");
+            out.append("# HELP ").append(name).append(' ').append(help).append(".\n");
+            out.append(name).append(' ').append(value.get()).append('\n');
+        }
+    }
+
+    /**
+     * Render all metrics in OpenMetrics text format
+     * @return exposition text ending with "# EOF"
+     */
+    public static String render() {
+        StringBuilder out = new StringBuilder(4096);
+        synchronized (metrics) {
+            for (Metric metric : metrics) {
+                metric.render(out);
+            }
+        }
+        return out.append("# EOF\n").toString();
+    }
+
+    private static <T extends Metric> T register(T metric) {
+        synchronized (metrics) {
+            metrics.add(metric);
+        }
+        return metric;
+    }
+
+    private static String formatBound(double bound) {
+        return bound == Math.rint(bound) ? String.format(Locale.ROOT, "%.1f", bound) : String.valueOf(bound);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
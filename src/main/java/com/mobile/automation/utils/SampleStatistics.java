@@ -0,0 +1,129 @@
+package com.mobile.automation.utils;
+
+import java.util.Arrays;
+
+/**
+ * Descriptive statistics and a Welch t-test for small samples of durations
+ */
+public class SampleStatistics {
+    // Two-sided 95% Student t critical values for 1..30 degrees of freedom
+    private static final double[] T_CRITICAL_95 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+
+    private final double[] sorted;
+    private final double mean;
+    private final double standardDeviation;
+
+    /**
+     * @param values Sample values, at least one
+     */
+    public SampleStatistics(double[] values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("At least one value is required");
+        }
+        this.sorted = values.clone();
+        Arrays.sort(sorted);
+        double sum = 0;
+        for (double value : sorted) {
+            sum += value;
+        }
+        this.mean = sum / sorted.length;
+        double squares = 0;
+        for (double value : sorted) {
+            squares += (value - mean) * (value - mean);
+        }
+        this.standardDeviation = sorted.length > 1 ? Math.sqrt(squares / (sorted.length - 1)) : 0;
+    }
+
+    /**
+     * Get the sample values
+     * @return values in ascending order
+     */
+    public double[] getValues() {
+        return sorted.clone();
+    }
+
+    public int getCount() {
+        return sorted.length;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    public double getMedian() {
+        return getPercentile(50);
+    }
+
+    /**
+     * Get a percentile using the nearest-rank method
+     * @param percentile Percentile between 0 and 100
+     * @return value at the percentile
+     */
+    public double getPercentile(double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /**
+     * Get the half width of the 95% confidence interval of the mean
+     * @return margin to add to and subtract from the mean
+     */
+    public double getConfidenceMargin95() {
+        if (sorted.length < 2) {
+            return Double.NaN;
+        }
+        return tCritical95(sorted.length - 1) * standardDeviation / Math.sqrt(sorted.length);
+    }
+
+    /**
+     * Get the half width of the 95% prediction interval for one more value from the same distribution
+     * Wider than the confidence margin of the mean, since a single value varies as much as the sample does
+     * @return margin to add to and subtract from the mean
+     */
+    public double getPredictionMargin95() {
+        if (sorted.length < 2) {
+            return Double.NaN;
+        }
+        return tCritical95(sorted.length - 1) * standardDeviation * Math.sqrt(1 + 1.0 / sorted.length);
+    }
+
+    /**
+     * Check whether this sample's mean is significantly greater than a baseline's (Welch t-test, one-sided, ~97.5%)
+     * @param baseline Baseline statistics
+     * @return true when the increase is statistically significant
+     */
+    public boolean isSignificantlyGreaterThan(SampleStatistics baseline) {
+        double varianceA = standardDeviation * standardDeviation / getCount();
+        double varianceB = baseline.standardDeviation * baseline.standardDeviation / baseline.getCount();
+        double standardError = Math.sqrt(varianceA + varianceB);
+        if (standardError == 0) {
+            return mean > baseline.mean;
+        }
+        double t = (mean - baseline.mean) / standardError;
+        double degreesOfFreedom = (varianceA + varianceB) * (varianceA + varianceB)
+                / (varianceA * varianceA / Math.max(1, getCount() - 1)
+                + varianceB * varianceB / Math.max(1, baseline.getCount() - 1));
+        return t > tCritical95((int) Math.floor(degreesOfFreedom));
+    }
+
+    private static double tCritical95(int degreesOfFreedom) {
+        if (degreesOfFreedom < 1) {
+            return T_CRITICAL_95[0];
+        }
+        return degreesOfFreedom <= T_CRITICAL_95.length ? T_CRITICAL_95[degreesOfFreedom - 1] : 1.96;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.1f ±%.1f median=%.1f p95=%.1f sd=%.1f", getCount(), mean,
+                getConfidenceMargin95(), getMedian(), getPercentile(95), standardDeviation);
+    }
+}
@@ -0,0 +1,306 @@
+package com.mobile.automation.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.context.TestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cleans up Appium sessions and device leases that their test no longer owns
+ * Every session this JVM creates is recorded in a lease file named after the JVM's pid under cache.dir/sessions,
+ * so sessions left by a crashed JVM are deleted when the next JVM starts, and a shutdown hook deletes this JVM's own
+ * A periodic sweep deletes sessions whose test context was closed, whose thread died or that ran too long,
+ * returns stuck device leases to the pool, and deletes sessions on our servers that no live JVM recorded
+ */
+public class SessionReaper {
+    private static final Logger logger = LoggerFactory.getLogger(SessionReaper.class);
+    private static final String LEASE_DIR = "sessions";
+    private static final String NO_DEVICE = "-";
+
+    private static final Map<String, Lease> sessions = new ConcurrentHashMap<>();
+    private static final Set<String> knownServers = ConcurrentHashMap.newKeySet();
+    private static Set<String> suspectSessions = new HashSet<>();
+    private static ScheduledExecutorService sweeper;
+
+    /**
+     * A session created by this JVM and the test that owns it; a parked session has no owner
+     */
+    private static final class Lease {
+        private final String serverUrl;
+        private final String serial;
+        private final TestContext context;
+        private final Thread thread;
+        private final long createdAt = System.currentTimeMillis();
+
+        private Lease(String serverUrl, String serial, TestContext context, Thread thread) {
+            this.serverUrl = serverUrl;
+            this.serial = serial;
+            this.context = context;
+            this.thread = thread;
+        }
+    }
+
+    /**
+     * Delete sessions left by JVMs that are no longer running, then start the periodic sweep and the shutdown hook
+     * Safe to call more than once
+     */
+    public static synchronized void start() {
+        if (sweeper != null) {
+            return;
+        }
+        reapStaleLeaseFiles();
+        int interval = ConfigManager.getSessionReaperInterval();
+        sweeper = Executors.newSingleThreadScheduledExecutor(VirtualThreads.newThreadFactory("session-reaper"));
+        sweeper.scheduleWithFixedDelay(SessionReaper::sweep, interval, interval, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(SessionReaper::deleteAll, "session-reaper-shutdown"));
+    }
+
+    /**
+     * Record a session created for the current test
+     * @param serverUrl Appium server URL
+     * @param sessionId Session id
+     * @param serial Device serial, or null for the only connected device
+     */
+    public static void register(String serverUrl, String sessionId, String serial) {
+        start();
+        knownServers.add(serverUrl);
+        sessions.put(sessionId, new Lease(serverUrl, serial, TestContext.current(), Thread.currentThread()));
+        writeLeaseFile();
+    }
+
+    /**
+     * Keep recording a session that no test owns while it waits to be reused, so sweeps leave it alone
+     * @param sessionId Session id
+     */
+    public static void park(String sessionId) {
+        Lease lease = sessions.get(sessionId);
+        if (lease != null) {
+            sessions.put(sessionId, new Lease(lease.serverUrl, lease.serial, null, null));
+        }
+    }
+
+    /**
+     * Forget a session that was quit normally
+     * @param sessionId Session id
+     */
+    public static void unregister(String sessionId) {
+        if (sessions.remove(sessionId) != null) {
+            writeLeaseFile();
+        }
+    }
+
+    /**
+     * Delete orphaned sessions and return stuck device leases to the pool
+     */
+    public static void sweep() {
+        try {
+            long maxAge = TimeUnit.SECONDS.toMillis(ConfigManager.getMaxSessionDuration());
+            for (Map.Entry<String, Lease> entry : sessions.entrySet()) {
+                Lease lease = entry.getValue();
+                if (lease.context == null) {
+                    continue;
+                }
+                String reason = lease.context.isClosed() ? "test ended without quitting it"
+                        : !lease.thread.isAlive() ? "owning thread died"
+                        : System.currentTimeMillis() - lease.createdAt > maxAge ? "exceeded session.max.duration"
+                        : null;
+                if (reason != null && sessions.remove(entry.getKey(), lease)) {
+                    logger.warn("Deleting session {} on device {}: {}", entry.getKey(), lease.serial, reason);
+                    deleteSession(lease.serverUrl, entry.getKey());
+                    writeLeaseFile();
+                }
+            }
+
+            DevicePool.reclaimStuckLeases();
+            deleteUnrecordedSessions();
+        } catch (RuntimeException e) {
+            logger.warn("Session sweep failed", e);
+        }
+    }
+
+    /**
+     * Delete sessions on our servers, for our devices, that no running JVM has recorded
+     * A session must be seen unrecorded by two sweeps in a row, so one being created right now is left alone
+     */
+    private static synchronized void deleteUnrecordedSessions() {
+        Set<String> devices = new HashSet<>(DevicePool.getReadyDevices());
+        for (Lease lease : sessions.values()) {
+            if (lease.serial != null) {
+                devices.add(lease.serial);
+            }
+        }
+        if (devices.isEmpty()) {
+            return;
+        }
+        Set<String> recorded = getRecordedSessionIds();
+        Set<String> unrecorded = new HashSet<>();
+        for (String serverUrl : knownServers) {
+            for (JsonNode session : listServerSessions(serverUrl)) {
+                String id = session.path("id").asText();
+                JsonNode capabilities = session.path("capabilities");
+                String udid = capabilities.path("udid").asText(capabilities.path("appium:udid").asText(""));
+                if (recorded.contains(id) || !devices.contains(udid)) {
+                    continue;
+                }
+                if (suspectSessions.contains(id)) {
+                    logger.warn("Deleting orphaned session {} on device {} at {}", id, udid, serverUrl);
+                    deleteSession(serverUrl, id);
+                } else {
+                    unrecorded.add(id);
+                }
+            }
+        }
+        suspectSessions = unrecorded;
+    }
+
+    /**
+     * Get the ids of sessions recorded by this JVM and by other JVMs that are still running
+     */
+    private static Set<String> getRecordedSessionIds() {
+        Set<String> ids = new HashSet<>(sessions.keySet());
+        File[] files = getLeaseDir().listFiles((dir, name) -> name.endsWith(".properties"));
+        if (files != null) {
+            for (File file : files) {
+                if (isProcessAlive(file)) {
+                    ids.addAll(loadLeaseFile(file).stringPropertyNames());
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Delete the sessions recorded by JVMs that are no longer running and remove their lease files
+     */
+    private static void reapStaleLeaseFiles() {
+        File[] files = getLeaseDir().listFiles((dir, name) -> name.endsWith(".properties"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (isProcessAlive(file)) {
+                continue;
+            }
+            Properties leases = loadLeaseFile(file);
+            for (String sessionId : leases.stringPropertyNames()) {
+                String[] lease = leases.getProperty(sessionId).split(" ");
+                knownServers.add(lease[0]);
+                logger.warn("Deleting session {} on device {} left by a JVM that exited", sessionId, lease[1]);
+                deleteSession(lease[0], sessionId);
+            }
+            if (!file.delete()) {
+                logger.warn("Could not delete stale lease file {}", file);
+            }
+        }
+    }
+
+    /**
+     * Delete the sessions this JVM still holds, on shutdown
+     */
+    private static void deleteAll() {
+        for (Map.Entry<String, Lease> entry : sessions.entrySet()) {
+            logger.info("Deleting session {} at shutdown", entry.getKey());
+            deleteSession(entry.getValue().serverUrl, entry.getKey());
+        }
+        sessions.clear();
+        getLeaseFile().delete();
+    }
+
+    private static synchronized void writeLeaseFile() {
+        Properties leases = new Properties();
+        sessions.forEach((id, lease) -> leases.setProperty(id,
+                lease.serverUrl + " " + (lease.serial != null ? lease.serial : NO_DEVICE)));
+        File file = getLeaseFile();
+        file.getParentFile().mkdirs();
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            leases.store(fos, "Appium sessions of JVM " + ProcessHandle.current().pid());
+        } catch (IOException e) {
+            logger.warn("Could not write session lease file {}", file, e);
+        }
+    }
+
+    private static Properties loadLeaseFile(File file) {
+        Properties leases = new Properties();
+        try (FileInputStream fis = new FileInputStream(file)) {
+            leases.load(fis);
+        } catch (IOException e) {
+            logger.warn("Could not read session lease file {}", file, e);
+        }
+        return leases;
+    }
+
+    private static boolean isProcessAlive(File leaseFile) {
+        String name = leaseFile.getName();
+        try {
+            long pid = Long.parseLong(name.substring(0, name.length() - ".properties".length()));
+            return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static File getLeaseDir() {
+        return new File(ConfigManager.getCacheDir(), LEASE_DIR);
+    }
+
+    private static File getLeaseFile() {
+        return new File(getLeaseDir(), ProcessHandle.current().pid() + ".properties");
+    }
+
+    private static List<JsonNode> listServerSessions(String serverUrl) {
+        // Appium 2 lists sessions under /appium/sessions, Appium 1 under /sessions
+        for (String path : new String[] {"/appium/sessions", "/sessions"}) {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(serverUrl + path).openConnection();
+                connection.setConnectTimeout(5000);
+                connection.setReadTimeout(5000);
+                if (connection.getResponseCode() != 200) {
+                    continue;
+                }
+                try (InputStream in = connection.getInputStream()) {
+                    List<JsonNode> result = new ArrayList<>();
+                    Json.MAPPER.readTree(in).path("value").forEach(result::add);
+                    return result;
+                }
+            } catch (IOException e) {
+                logger.debug("Could not list sessions at {}{}: {}", serverUrl, path, e.getMessage());
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private static void deleteSession(String serverUrl, String sessionId) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(serverUrl + "/session/" + sessionId).openConnection();
+            connection.setRequestMethod("DELETE");
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(30000);
+            int responseCode = connection.getResponseCode();
+            if (responseCode != 200 && responseCode != 404) {
+                logger.warn("Deleting session {} returned HTTP {}", sessionId, responseCode);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not delete session {} at {}: {}", sessionId, serverUrl, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.mobile.automation.utils;
+
+import com.mobile.automation.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * Repeatedly launches the app with am start -W and reports TotalTime/WaitTime statistics
+ * Results are compared with a stored baseline per start mode to flag startup regressions between app builds
+ */
+public class StartupBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(StartupBenchmark.class);
+    private static final String BASELINE_FILE = "startup-baseline.properties";
+
+    /**
+     * How the app is prepared before each launch
+     */
+    public enum StartMode {
+        /** Process killed with force-stop, app data kept */
+        COLD,
+        /** Process killed and app data cleared, as on a first launch */
+        FIRST_LAUNCH,
+        /** Process kept alive and sent to background with HOME */
+        WARM
+    }
+
+    private final StartMode mode;
+    private final int iterations;
+    private final int warmupIterations;
+
+    public StartupBenchmark(StartMode mode, int iterations, int warmupIterations) {
+        if (iterations < 2) {
+            throw new IllegalArgumentException("At least two measured iterations are required");
+        }
+        this.mode = mode;
+        this.iterations = iterations;
+        this.warmupIterations = warmupIterations;
+    }
+
+    /**
+     * Run the warm-up and measured launches
+     * @return Result with TotalTime and WaitTime statistics and the baseline comparison
+     */
+    public Result run() {
+        logger.info("Running {} startup benchmark: {} warm-up + {} measured launches", mode, warmupIterations, iterations);
+        double[] totalTimes = new double[iterations];
+        double[] waitTimes = new double[iterations];
+
+        if (mode == StartMode.WARM) {
+            DeviceUtils.stopApp();
+            launch();
+        }
+        for (int i = 0; i < warmupIterations + iterations; i++) {
+            prepareLaunch();
+            int[] times = launch();
+            if (i >= warmupIterations) {
+                totalTimes[i - warmupIterations] = times[0];
+                waitTimes[i - warmupIterations] = times[1];
+            }
+            logger.debug("Launch {}: TotalTime={} ms WaitTime={} ms{}", i + 1, times[0], times[1],
+                    i < warmupIterations ? " (warm-up)" : "");
+        }
+
+        String appVersion = DeviceUtils.getInstalledAppVersion();
+        Result result = new Result(mode, appVersion, new SampleStatistics(totalTimes), new SampleStatistics(waitTimes),
+                loadBaseline());
+        logger.info("{} startup of {}: TotalTime {}, WaitTime {}", mode, appVersion, result.getTotalTime(), result.getWaitTime());
+        if (result.isRegression()) {
+            logger.warn("{} startup regression: mean TotalTime {} ms vs baseline {} ms ({})", mode,
+                    String.format("%.1f", result.getTotalTime().getMean()),
+                    String.format("%.1f", result.getBaseline().getMean()), result.getBaselineVersion());
+        }
+        return result;
+    }
+
+    /**
+     * Store a result as the baseline for its start mode
+     * @param result Result to keep as baseline
+     */
+    public static void saveBaseline(Result result) {
+        File file = new File(ConfigManager.getCacheDir(), BASELINE_FILE);
+        Properties baseline = loadBaselineProperties(file);
+        String prefix = result.mode.name().toLowerCase() + ".";
+        baseline.setProperty(prefix + "version", result.appVersion);
+        baseline.setProperty(prefix + "samples", Arrays.stream(result.totalTime.getValues())
+                .mapToObj(value -> String.valueOf((long) value))
+                .collect(Collectors.joining(",")));
+        file.getParentFile().mkdirs();
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            baseline.store(fos, "Startup TotalTime baseline per start mode (ms)");
+            logger.info("Saved {} startup baseline for {}", result.mode, result.appVersion);
+        } catch (IOException e) {
+            logger.warn("Could not save startup baseline", e);
+        }
+    }
+
+    private void prepareLaunch() {
+        switch (mode) {
+            case COLD:
+                DeviceUtils.stopApp();
+                break;
+            case FIRST_LAUNCH:
+                DeviceUtils.stopApp();
+                DeviceUtils.clearAppData();
+                break;
+            case WARM:
+                DeviceUtils.executeAdbCommand("shell", "input", "keyevent", "KEYCODE_HOME");
+                break;
+            default:
+                throw new IllegalStateException("Unknown start mode " + mode);
+        }
+    }
+
+    private int[] launch() {
+        String output = DeviceUtils.executeAdbCommand("shell", "am", "start", "-W", "-n",
+                ConfigManager.getAppPackage() + "/" + ConfigManager.getAppActivity());
+        int totalTime = -1;
+        int waitTime = -1;
+        for (String line : output.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("TotalTime:")) {
+                totalTime = Integer.parseInt(trimmed.substring("TotalTime:".length()).trim());
+            } else if (trimmed.startsWith("WaitTime:")) {
+                waitTime = Integer.parseInt(trimmed.substring("WaitTime:".length()).trim());
+            }
+        }
+        if (totalTime < 0) {
+            throw new RuntimeException("am start -W did not report TotalTime: " + output.trim());
+        }
+        return new int[]{totalTime, waitTime};
+    }
+
+    private Properties loadBaseline() {
+        return loadBaselineProperties(new File(ConfigManager.getCacheDir(), BASELINE_FILE));
+    }
+
+    private static Properties loadBaselineProperties(File file) {
+        Properties properties = new Properties();
+        if (file.exists()) {
+            try (FileInputStream fis = new FileInputStream(file)) {
+                properties.load(fis);
+            } catch (IOException e) {
+                logger.warn("Could not load startup baseline", e);
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Outcome of a startup benchmark run
+     */
+    public static class Result {
+        private final StartMode mode;
+        private final String appVersion;
+        private final SampleStatistics totalTime;
+        private final SampleStatistics waitTime;
+        private final SampleStatistics baseline;
+        private final String baselineVersion;
+
+        private Result(StartMode mode, String appVersion, SampleStatistics totalTime, SampleStatistics waitTime,
+                       Properties baselines) {
+            this.mode = mode;
+            this.appVersion = appVersion;
+            this.totalTime = totalTime;
+            this.waitTime = waitTime;
+            String prefix = mode.name().toLowerCase() + ".";
+            String samples = baselines.getProperty(prefix + "samples");
+            if (samples != null && !samples.isEmpty()) {
+                this.baseline = new SampleStatistics(Arrays.stream(samples.split(","))
+                        .mapToDouble(Double::parseDouble)
+                        .toArray());
+                this.baselineVersion = baselines.getProperty(prefix + "version");
+            } else {
+                this.baseline = null;
+                this.baselineVersion = null;
+            }
+        }
+
+        public StartMode getMode() {
+            return mode;
+        }
+
+        public String getAppVersion() {
+            return appVersion;
+        }
+
+        public SampleStatistics getTotalTime() {
+            return totalTime;
+        }
+
+        public SampleStatistics getWaitTime() {
+            return waitTime;
+        }
+
+        public SampleStatistics getBaseline() {
+            return baseline;
+        }
+
+        public String getBaselineVersion() {
+            return baselineVersion;
+        }
+
+        /**
+         * Check whether mean TotalTime is significantly slower than the baseline and beyond the configured tolerance
+         * @return true for a startup regression, false when there is no baseline
+         */
+        public boolean isRegression() {
+            if (baseline == null) {
+                return false;
+            }
+            double allowed = baseline.getMean() * (1 + ConfigManager.getStartupRegressionTolerance());
+            return totalTime.getMean() > allowed && totalTime.isSignificantlyGreaterThan(baseline);
+        }
+    }
+}
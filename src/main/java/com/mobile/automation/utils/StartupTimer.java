@@ -0,0 +1,126 @@
+package com.mobile.automation.utils;
+
+import com.mobile.automation.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures how long the JVM takes to reach the suite start and the first session ready for commands
+ * Each run is appended to cache.dir/startup-times.csv and compared with the median of earlier runs started the same
+ * way (with or without a class data sharing archive), so startup regressions show up in the log
+ */
+public class StartupTimer {
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimer.class);
+    private static final String HISTORY_FILE = "startup-times.csv";
+    private static final int HISTORY_RUNS = 20;
+    private static final double REGRESSION_FACTOR = 1.5;
+
+    private static final long JVM_START_MILLIS;
+    private static final boolean CDS;
+    private static volatile long suiteStartMillis = -1;
+    private static volatile long firstCommandMillis = -1;
+
+    static {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        JVM_START_MILLIS = runtime.getStartTime();
+        CDS = runtime.getInputArguments().stream().anyMatch(argument -> argument.startsWith("-XX:SharedArchiveFile"));
+    }
+
+    /**
+     * Record that the suite started; only the first call counts
+     */
+    public static synchronized void markSuiteStart() {
+        if (suiteStartMillis < 0) {
+            suiteStartMillis = System.currentTimeMillis() - JVM_START_MILLIS;
+            logger.info("Suite started {} ms after JVM start{}", suiteStartMillis, CDS ? " (class data sharing archive)" : "");
+        }
+    }
+
+    /**
+     * Record that the first session is ready for commands; only the first call counts
+     */
+    public static synchronized void markFirstCommand() {
+        if (firstCommandMillis >= 0) {
+            return;
+        }
+        firstCommandMillis = System.currentTimeMillis() - JVM_START_MILLIS;
+        long median = getHistoricalMedian();
+        if (median > 0 && firstCommandMillis > median * REGRESSION_FACTOR) {
+            logger.warn("Time to first command {} ms is more than {}x the median of earlier runs ({} ms)",
+                    firstCommandMillis, REGRESSION_FACTOR, median);
+        } else {
+            logger.info("Time to first command {} ms{}", firstCommandMillis, median > 0 ? " (median of earlier runs " + median + " ms)" : "");
+        }
+        appendHistory();
+    }
+
+    /**
+     * Get the time from JVM start to suite start
+     * @return seconds, NaN until the suite started
+     */
+    public static double getSecondsToSuiteStart() {
+        return suiteStartMillis < 0 ? Double.NaN : suiteStartMillis / 1000.0;
+    }
+
+    /**
+     * Get the time from JVM start to the first session ready for commands
+     * @return seconds, NaN until the first session is ready
+     */
+    public static double getSecondsToFirstCommand() {
+        return firstCommandMillis < 0 ? Double.NaN : firstCommandMillis / 1000.0;
+    }
+
+    /**
+     * Median time to first command of the last runs started the same way
+     * @return milliseconds, or -1 without history
+     */
+    private static long getHistoricalMedian() {
+        File file = new File(ConfigManager.getCacheDir(), HISTORY_FILE);
+        if (!file.exists()) {
+            return -1;
+        }
+        List<Long> durations = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                String[] fields = line.split(",");
+                if (fields.length == 4 && fields[1].equals(String.valueOf(CDS))) {
+                    durations.add(Long.parseLong(fields[3]));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Could not read startup history {}", file, e);
+            return -1;
+        }
+        if (durations.isEmpty()) {
+            return -1;
+        }
+        List<Long> recent = new ArrayList<>(durations.subList(Math.max(0, durations.size() - HISTORY_RUNS), durations.size()));
+        Collections.sort(recent);
+        return recent.get(recent.size() / 2);
+    }
+
+    private static void appendHistory() {
+        File file = new File(ConfigManager.getCacheDir(), HISTORY_FILE);
+        file.getParentFile().mkdirs();
+        try (PrintWriter out = new PrintWriter(new FileWriter(file, StandardCharsets.UTF_8, true))) {
+            out.println(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + "," + CDS + ","
+                    + suiteStartMillis + "," + firstCommandMillis);
+        } catch (IOException e) {
+            logger.warn("Could not write startup history {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.mobile.automation.utils;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.context.TestContext;
+import org.openqa.selenium.remote.http.Filter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Records nested timing spans (suite, test, page step, driver command, adb call) and exports them as a
+ * Chrome trace / Perfetto JSON file, so a run can be inspected in chrome://tracing or ui.perfetto.dev
+ * Spans on one thread nest by time; each test thread becomes its own track
+ * Enabled with trace.enabled=true; when disabled, begin() returns a shared no-op span and records nothing
+ */
+public class TraceRecorder {
+    private static final Logger logger = LoggerFactory.getLogger(TraceRecorder.class);
+    private static final boolean ENABLED = ConfigManager.isTraceEnabled();
+    private static final long ORIGIN_NANOS = System.nanoTime();
+    private static final Span NOOP = new Span(null, null, null, 0);
+    private static final Queue<Span> finished = new ConcurrentLinkedQueue<>();
+    private static final Map<Long, String> threadNames = new ConcurrentHashMap<>();
+
+    /**
+     * A timed section of work, recorded when closed
+     */
+    public static final class Span implements AutoCloseable {
+        private final String name;
+        private final String category;
+        private final String detail;
+        private final long startNanos;
+        private final long threadId;
+        private long endNanos;
+
+        private Span(String name, String category, Object detail, long threadId) {
+            this.name = name;
+            this.category = category;
+            this.detail = detail != null ? String.valueOf(detail) : null;
+            this.threadId = threadId;
+            this.startNanos = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            if (this == NOOP || endNanos != 0) {
+                return;
+            }
+            endNanos = System.nanoTime();
+            finished.add(this);
+        }
+    }
+
+    /**
+     * Spans of the test running in a TestContext
+     */
+    private static final class TestSpans {
+        private Span test;
+        private Span step;
+    }
+
+    /**
+     * Check if tracing is on
+     * @return true when trace.enabled=true
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Start a span on the calling thread
+     * @param name Span name shown in the timeline
+     * @param category Span category, e.g. "test", "page", "driver", "adb"
+     * @param detail Optional detail shown in the span arguments; only converted to text when tracing is on
+     * @return Span to close when the work is done
+     */
+    public static Span begin(String name, String category, Object detail) {
+        if (!ENABLED) {
+            return NOOP;
+        }
+        Thread thread = Thread.currentThread();
+        threadNames.putIfAbsent(thread.getId(), thread.getName());
+        return new Span(name, category, detail, thread.getId());
+    }
+
+    /**
+     * Start the span of a test method in the current TestContext
+     * @param testName Test method name
+     */
+    public static void startTest(String testName) {
+        if (!ENABLED) {
+            return;
+        }
+        endTest();
+        TestSpans spans = new TestSpans();
+        spans.test = begin(testName, "test", DevicePool.getCurrentDevice());
+        TestContext.current().put(TestSpans.class, spans);
+    }
+
+    /**
+     * Start the span of a test step, ending the previous step of the same test
+     * @param stepName Step description
+     */
+    public static void step(String stepName) {
+        if (!ENABLED) {
+            return;
+        }
+        TestContext context = TestContext.peek();
+        TestSpans spans = context != null ? context.get(TestSpans.class) : null;
+        if (spans == null) {
+            return;
+        }
+        if (spans.step != null) {
+            spans.step.close();
+        }
+        spans.step = begin(stepName, "step", null);
+    }
+
+    /**
+     * End the spans of the test in the current TestContext
+     */
+    public static void endTest() {
+        TestContext context = TestContext.peek();
+        TestSpans spans = context != null ? context.remove(TestSpans.class) : null;
+        if (spans != null) {
+            if (spans.step != null) {
+                spans.step.close();
+            }
+            spans.test.close();
+        }
+    }
+
+    /**
+     * Get an HTTP filter that records every driver command as a span
+     * Session ids are stripped from the path so the same command has the same name in every session
+     * @return Filter for the Appium client configuration
+     */
+    public static Filter driverCommandFilter() {
+        return next -> request -> {
+            if (!ENABLED) {
+                return next.execute(request);
+            }
+            String path = request.getUri().replaceFirst("^/session/[^/]+", "");
+            try (Span ignored = begin(request.getMethod() + " " + (path.isEmpty() ? "/session" : path), "driver", null)) {
+                return next.execute(request);
+            }
+        };
+    }
+
+    /**
+     * Write the spans finished since the last export as a Chrome trace JSON file and drop them, so each run of a
+     * long-lived JVM exports only its own spans
+     * @param file Target file
+     */
+    public static void export(File file) {
+        if (!ENABLED) {
+            return;
+        }
+        List<Span> spans = new ArrayList<>();
+        for (Span span = finished.poll(); span != null; span = finished.poll()) {
+            spans.add(span);
+        }
+        if (spans.isEmpty()) {
+            return;
+        }
+        file.getParentFile().mkdirs();
+        long pid = ProcessHandle.current().pid();
+        try (JsonGenerator json = new JsonFactory().createGenerator(file, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("displayTimeUnit", "ms");
+            json.writeArrayFieldStart("traceEvents");
+            for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+                json.writeStartObject();
+                json.writeStringField("name", "thread_name");
+                json.writeStringField("ph", "M");
+                json.writeNumberField("pid", pid);
+                json.writeNumberField("tid", thread.getKey());
+                json.writeObjectFieldStart("args");
+                json.writeStringField("name", thread.getValue());
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+            for (Span span : spans) {
+                json.writeStartObject();
+                json.writeStringField("name", span.name);
+                json.writeStringField("cat", span.category);
+                json.writeStringField("ph", "X");
+                json.writeNumberField("ts", (span.startNanos - ORIGIN_NANOS) / 1000.0);
+                json.writeNumberField("dur", (span.endNanos - span.startNanos) / 1000.0);
+                json.writeNumberField("pid", pid);
+                json.writeNumberField("tid", span.threadId);
+                if (span.detail != null) {
+                    json.writeObjectFieldStart("args");
+                    json.writeStringField("detail", span.detail);
+                    json.writeEndObject();
+                }
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            logger.info("Wrote {} trace spans to {}", spans.size(), file);
+        } catch (IOException e) {
+            logger.error("Failed to write trace file {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.mobile.automation.utils;
+
+import com.mobile.automation.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the framework's background work (device preparation, adb readers, samplers)
+ * In virtual thread mode (execution.mode=virtual on JDK 21+) they create virtual threads; otherwise, or on older JDKs,
+ * daemon platform threads. The JDK 21 API is reached reflectively so the framework still builds for Java 11
+ */
+public class VirtualThreads {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreads.class);
+    private static final Method OF_VIRTUAL = findOfVirtual();
+
+    /**
+     * Check whether background and test work should run on virtual threads
+     * @return true when virtual thread mode is configured and the running JDK supports it
+     */
+    public static boolean isEnabled() {
+        return ConfigManager.isVirtualThreadModeEnabled() && OF_VIRTUAL != null;
+    }
+
+    /**
+     * Create a thread factory for background work
+     * @param name Thread name prefix
+     * @return ThreadFactory producing virtual threads in virtual thread mode, daemon platform threads otherwise
+     */
+    public static ThreadFactory newThreadFactory(String name) {
+        if (isEnabled()) {
+            try {
+                // Resolve the methods on the public Thread.Builder interface, not the JDK-internal builder class
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                Object builder = OF_VIRTUAL.invoke(null);
+                builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+                return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Could not create virtual thread factory, using platform threads: {}", e.getMessage());
+            }
+        }
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Start a background thread
+     * @param name Thread name
+     * @param task Task to run
+     * @return started Thread
+     */
+    public static Thread start(String name, Runnable task) {
+        Thread thread = newThreadFactory(name).newThread(task);
+        thread.start();
+        return thread;
+    }
+
+    private static Method findOfVirtual() {
+        try {
+            return Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
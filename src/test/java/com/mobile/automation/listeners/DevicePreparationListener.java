@@ -0,0 +1,54 @@
+package com.mobile.automation.listeners;
+
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.utils.AppiumServerManager;
+import com.mobile.automation.utils.DevicePool;
+import com.mobile.automation.utils.DriverCassette;
+import com.mobile.automation.utils.SessionReaper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+import java.util.List;
+
+/**
+ * TestNG Suite Listener that prepares every connected device concurrently before any test runs
+ * Devices that fail preparation are left out of the pool instead of aborting the suite
+ * With appium.server.managed=true it also starts one Appium server per device group and stops them at suite end
+ */
+public class DevicePreparationListener implements ISuiteListener {
+    private static final Logger logger = LoggerFactory.getLogger(DevicePreparationListener.class);
+    
+    /**
+     * Prepare the device pool at suite start
+     */
+    @Override
+    public void onStart(ISuite suite) {
+        if (DriverCassette.isReplaying()) {
+            logger.info("Replaying driver cassette, no devices to prepare for suite: {}", suite.getName());
+            return;
+        }
+        
+        // Free devices still held by sessions of an earlier run that crashed
+        SessionReaper.start();
+        
+        logger.info("Preparing device pool for suite: {}", suite.getName());
+        List<String> devices = DevicePool.prepareAll();
+        if (devices.isEmpty()) {
+            logger.error("No device could be prepared; tests in suite {} will fail to acquire a device", suite.getName());
+        } else if (ConfigManager.isManagedAppiumServerEnabled()) {
+            AppiumServerManager.startAll(devices);
+        }
+    }
+    
+    /**
+     * Stop the managed Appium servers at suite finish
+     */
+    @Override
+    public void onFinish(ISuite suite) {
+        if (ConfigManager.isManagedAppiumServerEnabled()) {
+            AppiumServerManager.stopAll();
+        }
+    }
+}
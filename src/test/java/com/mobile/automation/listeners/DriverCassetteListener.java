@@ -0,0 +1,26 @@
+package com.mobile.automation.listeners;
+
+import com.mobile.automation.utils.DriverCassette;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+
+/**
+ * TestNG Listener that fails a replayed test whose commands diverged from its recording, also when the test caught
+ * the failed command and went on, e.g. in an isDisplayed() check
+ * A test that ends before sending all recorded commands is failed by DriverCassette.endFlow() in BaseTest's teardown
+ */
+public class DriverCassetteListener implements IInvokedMethodListener {
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult result) {
+        if (!method.isTestMethod() || result.getStatus() != ITestResult.SUCCESS) {
+            return;
+        }
+        String divergence = DriverCassette.getFlowDivergence();
+        if (divergence != null) {
+            result.setStatus(ITestResult.FAILURE);
+            result.setThrowable(new AssertionError(divergence));
+        }
+    }
+}
@@ -5,6 +5,18 @@ import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.Status;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import com.aventstack.extentreports.reporter.configuration.Theme;
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.context.TestContext;
+import com.mobile.automation.pages.ElementTimeouts;
+import com.mobile.automation.pages.LocatorProfiler;
+import com.mobile.automation.pages.PageSettings;
+import com.mobile.automation.utils.DriverCassette;
+import com.mobile.automation.utils.LogRingBuffer;
+import com.mobile.automation.utils.LogcatStream;
+import com.mobile.automation.utils.PerformanceSampler;
+import com.mobile.automation.utils.PerformanceTimeSeries;
+import com.mobile.automation.utils.StartupTimer;
+import com.mobile.automation.utils.TraceRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.ITestListener;
@@ -33,18 +45,20 @@ import java.util.stream.Collectors;
 public class ExtentReportListener implements ITestListener, ISuiteListener {
     private static final Logger logger = LoggerFactory.getLogger(ExtentReportListener.class);
     private static ExtentReports extentReports;
-    private static ThreadLocal<ExtentTest> extentTest = new ThreadLocal<>();
     
     private static final String REPORTS_DIR = "reports";
     private static final String EXTENT_REPORT_NAME = "ExtentReport";
     
+    private TraceRecorder.Span suiteSpan;
+    
     /**
-     * Initialize ExtentReports at suite start
+     * Mark the suite start; ExtentReports is created with the first test so it does not delay the first session
      */
     @Override
     public void onStart(ISuite suite) {
         logger.info("Starting test suite: {}", suite.getName());
-        initializeExtentReports();
+        StartupTimer.markSuiteStart();
+        suiteSpan = TraceRecorder.begin(suite.getName(), "suite", null);
     }
     
     /**
@@ -53,13 +67,36 @@ public class ExtentReportListener implements ITestListener, ISuiteListener {
     @Override
     public void onFinish(ISuite suite) {
         logger.info("Finished test suite: {}", suite.getName());
-        if (extentReports != null) {
-            extentReports.flush();
+        ExtentReports reports;
+        synchronized (ExtentReportListener.class) {
+            reports = extentReports;
+            // The next suite in this JVM (e.g. the next TestDaemon run) starts its own report
+            extentReports = null;
+        }
+        if (reports != null) {
+            reports.flush();
             logger.info("ExtentReports flushed successfully");
             
             // Clean up old reports
             cleanupOldReports();
         }
+        
+        // Persist locator timings gathered in profiling mode
+        LocatorProfiler.writeRecommendations();
+        // Replayed waits say nothing about the device, so they must not train the learned timeouts
+        if (!DriverCassette.isReplaying()) {
+            ElementTimeouts.save();
+        }
+        DriverCassette.close();
+        PageSettings.logSummary();
+        LogcatStream.stopAll();
+        
+        // Export the run timeline
+        if (suiteSpan != null) {
+            suiteSpan.close();
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
+            TraceRecorder.export(new File(REPORTS_DIR + File.separator + "trace", "trace_" + timestamp + ".json"));
+        }
     }
     
     /**
@@ -71,14 +108,15 @@ public class ExtentReportListener implements ITestListener, ISuiteListener {
         
         String testName = result.getMethod().getMethodName();
         String description = result.getMethod().getDescription();
+        TraceRecorder.startTest(testName);
         
-        ExtentTest test = extentReports.createTest(testName, description != null ? description : testName);
+        ExtentTest test = getExtentReports().createTest(testName, description != null ? description : testName);
         test.assignCategory(result.getTestClass().getName());
         
-        extentTest.set(test);
+        TestContext.current().put(ExtentTest.class, test);
         
         // Log test start
-        extentTest.get().log(Status.INFO, "Test started: " + testName);
+        getCurrentTest().log(Status.INFO, "Test started: " + testName);
     }
     
     /**
@@ -87,12 +125,15 @@ public class ExtentReportListener implements ITestListener, ISuiteListener {
     @Override
     public void onTestSuccess(ITestResult result) {
         logger.info("Test passed: {}", result.getMethod().getMethodName());
+        TraceRecorder.endTest();
         
-        extentTest.get().log(Status.PASS, "Test passed successfully");
-        extentTest.get().log(Status.INFO, "Execution time: " + (result.getEndMillis() - result.getStartMillis()) + "ms");
+        getCurrentTest().log(Status.PASS, "Test passed successfully");
+        getCurrentTest().log(Status.INFO, "Execution time: " + (result.getEndMillis() - result.getStartMillis()) + "ms");
+        logPerformanceSummary(result);
+        LogcatStream.takeCapture();
         
-        // Remove from ThreadLocal
-        extentTest.remove();
+        // Remove from the test context
+        TestContext.current().remove(ExtentTest.class);
     }
     
     /**
@@ -101,19 +142,24 @@ public class ExtentReportListener implements ITestListener, ISuiteListener {
     @Override
     public void onTestFailure(ITestResult result) {
         logger.error("Test failed: {}", result.getMethod().getMethodName(), result.getThrowable());
+        TraceRecorder.endTest();
         
-        extentTest.get().log(Status.FAIL, "Test failed");
-        extentTest.get().log(Status.FAIL, "Error: " + result.getThrowable().getMessage());
-        extentTest.get().log(Status.INFO, "Execution time: " + (result.getEndMillis() - result.getStartMillis()) + "ms");
+        getCurrentTest().log(Status.FAIL, "Test failed");
+        getCurrentTest().log(Status.FAIL, "Error: " + result.getThrowable().getMessage());
+        getCurrentTest().log(Status.INFO, "Execution time: " + (result.getEndMillis() - result.getStartMillis()) + "ms");
+        logPerformanceSummary(result);
         
         // Log stack trace
         if (result.getThrowable() != null) {
-            extentTest.get().log(Status.FAIL, "<details><summary>Stack Trace</summary><pre>" + 
+            getCurrentTest().log(Status.FAIL, "<details><summary>Stack Trace</summary><pre>" + 
                 getStackTrace(result.getThrowable()) + "</pre></details>");
         }
         
-        // Remove from ThreadLocal
-        extentTest.remove();
+        // Dump the app's recent device logs
+        logLogcatCapture(result);
+        
+        // Remove from the test context
+        TestContext.current().remove(ExtentTest.class);
     }
     
     /**
@@ -122,14 +168,29 @@ public class ExtentReportListener implements ITestListener, ISuiteListener {
     @Override
     public void onTestSkipped(ITestResult result) {
         logger.warn("Test skipped: {}", result.getMethod().getMethodName());
+        TraceRecorder.endTest();
         
-        extentTest.get().log(Status.SKIP, "Test skipped");
+        getCurrentTest().log(Status.SKIP, "Test skipped");
+        LogcatStream.takeCapture();
         if (result.getThrowable() != null) {
-            extentTest.get().log(Status.SKIP, "Reason: " + result.getThrowable().getMessage());
+            getCurrentTest().log(Status.SKIP, "Reason: " + result.getThrowable().getMessage());
         }
         
-        // Remove from ThreadLocal
-        extentTest.remove();
+        // Remove from the test context
+        TestContext.current().remove(ExtentTest.class);
+    }
+    
+    /**
+     * Get the suite's ExtentReports, creating it on first use
+     * @return ExtentReports instance
+     */
+    private ExtentReports getExtentReports() {
+        synchronized (ExtentReportListener.class) {
+            if (extentReports == null) {
+                initializeExtentReports();
+            }
+            return extentReports;
+        }
     }
     
     /**
@@ -145,14 +206,16 @@ public class ExtentReportListener implements ITestListener, ISuiteListener {
             
             // Generate timestamp for report file
             String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
-            String reportPath = REPORTS_DIR + File.separator + EXTENT_REPORT_NAME + "_" + timestamp + ".html";
+            String reportPath = REPORTS_DIR + File.separator + getReportPrefix() + timestamp + ".html";
             
             // Initialize ExtentSparkReporter
             ExtentSparkReporter sparkReporter = new ExtentSparkReporter(reportPath);
             
             // Configure reporter
             sparkReporter.config().setDocumentTitle("Appium Mobile Automation Test Report");
-            sparkReporter.config().setReportName("Mobile Application Test Results");
+            sparkReporter.config().setReportName(ConfigManager.getShardCount() > 1
+                    ? "Mobile Application Test Results (shard " + ConfigManager.getShardIndex() + " of " + ConfigManager.getShardCount() + ")"
+                    : "Mobile Application Test Results");
             sparkReporter.config().setTheme(Theme.STANDARD);
             sparkReporter.config().setTimeStampFormat("yyyy-MM-dd HH:mm:ss");
             
@@ -180,7 +243,8 @@ public class ExtentReportListener implements ITestListener, ISuiteListener {
      * @return ExtentTest current test instance
      */
     public static ExtentTest getCurrentTest() {
-        return extentTest.get();
+        TestContext context = TestContext.peek();
+        return context != null ? context.get(ExtentTest.class) : null;
     }
     
     /**
@@ -189,11 +253,73 @@ public class ExtentReportListener implements ITestListener, ISuiteListener {
      * @param message Step message
      */
     public static void logStep(Status status, String message) {
-        if (extentTest.get() != null) {
-            extentTest.get().log(status, message);
+        ExtentTest test = getCurrentTest();
+        if (test != null) {
+            test.log(status, message);
         }
     }
     
+    /**
+     * Log per-step app performance of the finished test and save its samples next to the report
+     * @param result ITestResult of the finished test
+     */
+    private void logPerformanceSummary(ITestResult result) {
+        PerformanceTimeSeries series = PerformanceSampler.takeCurrent();
+        if (series == null || series.size() == 0) {
+            return;
+        }
+        
+        StringBuilder table = new StringBuilder("<table><tr><th>Step</th><th>Samples</th><th>Max PSS (MB)</th>"
+                + "<th>Avg CPU (%)</th><th>Frames</th><th>Janky frames</th></tr>");
+        for (PerformanceTimeSeries.StepSummary step : series.summarizeSteps()) {
+            table.append(String.format("<tr><td>%s</td><td>%d</td><td>%.1f</td><td>%.1f</td><td>%d</td><td>%d</td></tr>",
+                    step.getStep(), step.getSamples(), step.getMaxPssKb() / 1024.0, step.getAverageCpuPercent(),
+                    step.getFrames(), step.getJankyFrames()));
+        }
+        table.append("</table>");
+        getCurrentTest().log(Status.INFO, "<details><summary>App performance</summary>" + table + "</details>");
+        
+        try {
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
+            File samplesFile = new File(REPORTS_DIR + File.separator + "perf",
+                    result.getMethod().getMethodName() + "_" + timestamp + ".csv");
+            series.writeCsv(samplesFile);
+            logger.info("Performance samples saved to {}", samplesFile);
+        } catch (IOException e) {
+            logger.warn("Could not save performance samples", e);
+        }
+    }
+    
+    /**
+     * Save the app logcat lines captured during a failed test and attach the last ones to the report
+     * @param result ITestResult of the failed test
+     */
+    private void logLogcatCapture(ITestResult result) {
+        LogRingBuffer capture = LogcatStream.takeCapture();
+        if (capture == null) {
+            return;
+        }
+        List<String> lines = capture.getLines();
+        if (lines.isEmpty()) {
+            return;
+        }
+        
+        try {
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
+            Path logFile = Paths.get(REPORTS_DIR, "logcat", result.getMethod().getMethodName() + "_" + timestamp + ".log");
+            Files.createDirectories(logFile.getParent());
+            Files.write(logFile, lines);
+            logger.info("Saved {} logcat lines to {} ({} older lines dropped)", lines.size(), logFile, capture.getDroppedLines());
+        } catch (IOException e) {
+            logger.warn("Could not save logcat capture", e);
+        }
+        
+        List<String> tail = lines.subList(Math.max(0, lines.size() - 200), lines.size());
+        String escaped = String.join("\n", tail).replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+        getCurrentTest().log(Status.FAIL, "<details><summary>Logcat (last " + tail.size() + " lines)</summary><pre>"
+                + escaped + "</pre></details>");
+    }
+    
     /**
      * Convert throwable to string format
      * @param throwable Throwable to convert
@@ -208,6 +334,17 @@ public class ExtentReportListener implements ITestListener, ISuiteListener {
         return sb.toString();
     }
     
+    /**
+     * Get the report file name prefix, tagged with the shard when the run is split across nodes
+     * @return report file name prefix
+     */
+    private String getReportPrefix() {
+        if (ConfigManager.getShardCount() > 1) {
+            return EXTENT_REPORT_NAME + "_shard" + ConfigManager.getShardIndex() + "of" + ConfigManager.getShardCount() + "_";
+        }
+        return EXTENT_REPORT_NAME + "_";
+    }
+    
     /**
      * Clean up old reports keeping only the specified number of recent reports
      */
@@ -222,10 +359,13 @@ public class ExtentReportListener implements ITestListener, ISuiteListener {
                 return;
             }
             
-            // Get all ExtentReport HTML files
+            // Get the ExtentReport HTML files of this shard; merged and other shards' reports are left alone
+            String prefix = getReportPrefix();
             List<File> reportFiles = Files.list(reportsPath)
                     .map(Path::toFile)
-                    .filter(file -> file.getName().startsWith(EXTENT_REPORT_NAME) && file.getName().endsWith(".html"))
+                    .filter(file -> file.getName().startsWith(prefix)
+                            && Character.isDigit(file.getName().charAt(prefix.length()))
+                            && file.getName().endsWith(".html"))
                     .sorted(Comparator.comparingLong(File::lastModified).reversed()) // Sort by modification time, newest first
                     .collect(Collectors.toList());
             
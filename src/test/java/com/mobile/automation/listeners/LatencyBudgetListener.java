@@ -0,0 +1,121 @@
+package com.mobile.automation.listeners;
+
+import com.aventstack.extentreports.Status;
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.utils.DriverCassette;
+import com.mobile.automation.utils.FlowTimer;
+import com.mobile.automation.utils.LatencyBaseline;
+import com.mobile.automation.utils.LatencyBudget;
+import com.mobile.automation.utils.SampleStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TestNG Listener that times each test method and its steps, checks them against their latency budgets and the
+ * baseline of earlier runs, and highlights offending steps in the Extent report
+ * With latency.gate=true a passed test with an offending flow or step fails; durations of passed tests are added
+ * to the baseline, so a regression that failed the gate keeps failing until it is fixed or the baseline is reset
+ */
+public class LatencyBudgetListener implements IInvokedMethodListener, ISuiteListener {
+    private static final Logger logger = LoggerFactory.getLogger(LatencyBudgetListener.class);
+    private static final String TOTAL = "Whole test";
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult result) {
+        // Replayed tests do not run at device speed
+        if (!method.isTestMethod() || DriverCassette.isReplaying()) {
+            return;
+        }
+        LatencyBudget budget = method.getTestMethod().getConstructorOrMethod().getMethod().getAnnotation(LatencyBudget.class);
+        FlowTimer.start(getFlowName(result), budget != null ? budget.millis() : 0);
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult result) {
+        if (!method.isTestMethod()) {
+            return;
+        }
+        FlowTimer timer = FlowTimer.finish();
+        if (timer == null) {
+            return;
+        }
+
+        List<String> names = new ArrayList<>();
+        List<LatencyBaseline.Check> checks = new ArrayList<>();
+        names.add(TOTAL);
+        checks.add(LatencyBaseline.check(timer.getFlow(), timer.getTotalMillis(), timer.getBudgetMillis()));
+        for (FlowTimer.Step step : timer.getSteps()) {
+            names.add(step.getName());
+            checks.add(LatencyBaseline.check(timer.getFlow() + "|" + step.getName(), step.getMillis(), step.getBudgetMillis()));
+        }
+
+        List<String> offending = new ArrayList<>();
+        for (int i = 0; i < checks.size(); i++) {
+            LatencyBaseline.Check check = checks.get(i);
+            if (check.isOffending()) {
+                String problem = check.isRegression() ? "Latency regression" : "Latency budget exceeded";
+                offending.add(problem + " in '" + names.get(i) + "': " + check.describe());
+            }
+        }
+        boolean gate = ConfigManager.isLatencyGateEnabled() && result.getStatus() == ITestResult.SUCCESS;
+        report(names, checks, offending, gate);
+
+        if (!offending.isEmpty()) {
+            offending.forEach(message -> logger.warn("{}: {}", timer.getFlow(), message));
+            if (gate) {
+                result.setStatus(ITestResult.FAILURE);
+                result.setThrowable(new AssertionError(String.join("; ", offending)));
+            }
+        }
+        if (result.getStatus() == ITestResult.SUCCESS) {
+            for (LatencyBaseline.Check check : checks) {
+                LatencyBaseline.record(check.getKey(), check.getMillis());
+            }
+        }
+    }
+
+    /**
+     * Write the baseline at suite finish
+     */
+    @Override
+    public void onFinish(ISuite suite) {
+        LatencyBaseline.save();
+    }
+
+    /**
+     * Log the flow's durations as a table, offending rows in red, and one warning or failure per offending row
+     */
+    private void report(List<String> names, List<LatencyBaseline.Check> checks, List<String> offending, boolean gate) {
+        StringBuilder table = new StringBuilder("<table><tr><th>Step</th><th>Duration (ms)</th><th>Budget (ms)</th>"
+                + "<th>Baseline median (ms)</th><th>Baseline p95 (ms)</th><th>Runs</th></tr>");
+        for (int i = 0; i < checks.size(); i++) {
+            LatencyBaseline.Check check = checks.get(i);
+            SampleStatistics baseline = check.getBaseline();
+            table.append(check.isOffending() ? "<tr style=\"color:#c62828;font-weight:bold\">" : "<tr>")
+                    .append(String.format("<td>%s</td><td>%d</td><td>%s</td><td>%s</td><td>%s</td><td>%s</td></tr>",
+                            names.get(i), check.getMillis(),
+                            check.getBudgetMillis() > 0 ? String.valueOf(check.getBudgetMillis()) : "-",
+                            baseline != null ? String.format("%.0f", baseline.getMedian()) : "-",
+                            baseline != null ? String.format("%.0f", baseline.getPercentile(95)) : "-",
+                            baseline != null ? String.valueOf(baseline.getCount()) : "-"));
+        }
+        table.append("</table>");
+        ExtentReportListener.logStep(offending.isEmpty() ? Status.INFO : Status.WARNING,
+                "<details" + (offending.isEmpty() ? "" : " open") + "><summary>Flow latency</summary>" + table + "</details>");
+        for (String message : offending) {
+            ExtentReportListener.logStep(gate ? Status.FAIL : Status.WARNING, message);
+        }
+    }
+
+    private static String getFlowName(ITestResult result) {
+        return result.getTestClass().getRealClass().getSimpleName() + "#" + result.getMethod().getMethodName();
+    }
+}
@@ -0,0 +1,55 @@
+package com.mobile.automation.listeners;
+
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.utils.DevicePool;
+import com.mobile.automation.utils.MetricsServer;
+import com.mobile.automation.utils.RunMetrics;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+/**
+ * TestNG Listener that counts test outcomes per device and serves the live run metrics when metrics.port is set
+ */
+public class MetricsListener implements ITestListener, ISuiteListener {
+    
+    /**
+     * Start the metrics endpoint at suite start
+     */
+    @Override
+    public void onStart(ISuite suite) {
+        int port = ConfigManager.getMetricsPort();
+        if (port >= 0) {
+            MetricsServer.start(port);
+        }
+    }
+    
+    /**
+     * Stop the metrics endpoint at suite finish
+     */
+    @Override
+    public void onFinish(ISuite suite) {
+        MetricsServer.stop();
+    }
+    
+    @Override
+    public void onTestStart(ITestResult result) {
+        RunMetrics.TESTS_STARTED.increment(DevicePool.getCurrentDevice());
+    }
+    
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        RunMetrics.TESTS_PASSED.increment(DevicePool.getCurrentDevice());
+    }
+    
+    @Override
+    public void onTestFailure(ITestResult result) {
+        RunMetrics.TESTS_FAILED.increment(DevicePool.getCurrentDevice());
+    }
+    
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        RunMetrics.TESTS_SKIPPED.increment(DevicePool.getCurrentDevice());
+    }
+}
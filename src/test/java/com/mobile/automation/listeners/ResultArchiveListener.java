@@ -0,0 +1,104 @@
+package com.mobile.automation.listeners;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.utils.DevicePool;
+import com.mobile.automation.utils.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * TestNG Listener that writes every test result as one JSON line to a per-node result archive
+ * Archives from all shards are combined into one report and one timing dataset by ResultArchiveMerger
+ */
+public class ResultArchiveListener implements ITestListener, ISuiteListener {
+    private static final Logger logger = LoggerFactory.getLogger(ResultArchiveListener.class);
+    private static final String ARCHIVE_DIR = "reports" + File.separator + "archives";
+
+    private BufferedWriter writer;
+
+    /**
+     * Open the result archive of this node at suite start
+     */
+    @Override
+    public void onStart(ISuite suite) {
+        try {
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
+            String name = "results_shard" + ConfigManager.getShardIndex() + "of" + ConfigManager.getShardCount()
+                    + "_" + timestamp + ".jsonl";
+            Files.createDirectories(Paths.get(ARCHIVE_DIR));
+            writer = Files.newBufferedWriter(Paths.get(ARCHIVE_DIR, name), StandardCharsets.UTF_8);
+            logger.info("Writing result archive {}", name);
+        } catch (IOException e) {
+            logger.error("Could not open result archive", e);
+        }
+    }
+
+    /**
+     * Close the result archive at suite finish
+     */
+    @Override
+    public void onFinish(ISuite suite) {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                logger.warn("Could not close result archive", e);
+            }
+        }
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        write(result, "PASS");
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        write(result, "FAIL");
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        write(result, "SKIP");
+    }
+
+    private synchronized void write(ITestResult result, String status) {
+        if (writer == null) {
+            return;
+        }
+        ObjectNode record = Json.MAPPER.createObjectNode();
+        record.put("test", result.getMethod().getRealClass().getName() + "#" + result.getMethod().getMethodName());
+        record.put("description", result.getMethod().getDescription());
+        record.put("parameters", Arrays.toString(result.getParameters()));
+        record.put("status", status);
+        record.put("start", result.getStartMillis());
+        record.put("end", result.getEndMillis());
+        record.put("shard", ConfigManager.getShardIndex());
+        record.put("device", DevicePool.getCurrentDevice());
+        if (result.getThrowable() != null) {
+            record.put("error", String.valueOf(result.getThrowable().getMessage()));
+        }
+        try {
+            writer.write(Json.MAPPER.writeValueAsString(record));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            logger.warn("Could not write result of {} to archive", result.getMethod().getMethodName(), e);
+        }
+    }
+}
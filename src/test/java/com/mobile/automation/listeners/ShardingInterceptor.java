@@ -0,0 +1,135 @@
+package com.mobile.automation.listeners;
+
+import com.mobile.automation.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * TestNG Method Interceptor that keeps only the test methods assigned to this node when shard.count > 1
+ * Every node computes the same assignment from the same inputs:
+ * "hash" assigns by a stable hash of class#method, "timing" balances recorded durations with longest-first packing
+ * Data-driven methods run on every node, since their data source already splits the rows across all shards
+ */
+public class ShardingInterceptor implements IMethodInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(ShardingInterceptor.class);
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        int shardCount = ConfigManager.getShardCount();
+        int shardIndex = ConfigManager.getShardIndex();
+        if (shardCount <= 1) {
+            return methods;
+        }
+
+        List<IMethodInstance> selected = new ArrayList<>();
+        List<IMethodInstance> sharded = new ArrayList<>();
+        for (IMethodInstance method : methods) {
+            // Assigning a data-driven method to one node would leave the other nodes' rows unrun
+            if (method.getMethod().isDataDriven()) {
+                selected.add(method);
+            } else {
+                sharded.add(method);
+            }
+        }
+        int dataDriven = selected.size();
+
+        Map<String, Integer> assignment = "timing".equalsIgnoreCase(ConfigManager.getShardStrategy())
+                ? assignByTiming(sharded, shardCount)
+                : assignByHash(sharded, shardCount);
+        for (IMethodInstance method : sharded) {
+            if (assignment.get(getTestKey(method)) == shardIndex) {
+                selected.add(method);
+            }
+        }
+        logger.info("Shard {} of {} ({} strategy) runs {} of {} test methods, {} data-driven on every node", shardIndex,
+                shardCount, ConfigManager.getShardStrategy(), selected.size(), methods.size(), dataDriven);
+        return selected;
+    }
+
+    /**
+     * Get the key identifying a test method in shard assignments, result archives and timing data
+     * @param method Method instance
+     * @return class#method key
+     */
+    static String getTestKey(IMethodInstance method) {
+        return method.getMethod().getRealClass().getName() + "#" + method.getMethod().getMethodName();
+    }
+
+    private Map<String, Integer> assignByHash(List<IMethodInstance> methods, int shardCount) {
+        Map<String, Integer> assignment = new HashMap<>();
+        for (IMethodInstance method : methods) {
+            String key = getTestKey(method);
+            assignment.put(key, Math.floorMod(key.hashCode(), shardCount));
+        }
+        return assignment;
+    }
+
+    private Map<String, Integer> assignByTiming(List<IMethodInstance> methods, int shardCount) {
+        Map<String, Long> timings = loadTimings();
+        if (timings.isEmpty()) {
+            logger.warn("No recorded test timings found, falling back to hash sharding");
+            return assignByHash(methods, shardCount);
+        }
+        long defaultDuration = timings.values().stream().sorted().skip(timings.size() / 2).findFirst().orElse(1L);
+
+        // Sort by duration, longest first, with the key as tie breaker so every node builds the same plan
+        TreeSet<String> keys = new TreeSet<>();
+        for (IMethodInstance method : methods) {
+            keys.add(getTestKey(method));
+        }
+        List<String> ordered = new ArrayList<>(keys);
+        ordered.sort(Comparator.comparing((String key) -> timings.getOrDefault(key, defaultDuration)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+
+        long[] load = new long[shardCount];
+        Map<String, Integer> assignment = new HashMap<>();
+        for (String key : ordered) {
+            int lightest = 0;
+            for (int shard = 1; shard < shardCount; shard++) {
+                if (load[shard] < load[lightest]) {
+                    lightest = shard;
+                }
+            }
+            assignment.put(key, lightest);
+            load[lightest] += timings.getOrDefault(key, defaultDuration);
+        }
+        logger.info("Planned shard loads (ms): {}", Arrays.toString(load));
+        return assignment;
+    }
+
+    private Map<String, Long> loadTimings() {
+        Map<String, Long> timings = new HashMap<>();
+        Path file = Paths.get(ConfigManager.getTestTimingsFile());
+        if (!Files.exists(file)) {
+            return timings;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line = reader.readLine(); // header
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(",");
+                if (columns.length >= 2) {
+                    timings.put(columns[0], Long.parseLong(columns[1].trim()));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Could not read test timings from {}", file, e);
+        }
+        return timings;
+    }
+}
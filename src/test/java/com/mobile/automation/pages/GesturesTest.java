@@ -0,0 +1,37 @@
+package com.mobile.automation.pages;
+
+import org.openqa.selenium.Point;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+public class GesturesTest {
+    private static final Point FROM = new Point(100, 1000);
+    private static final Point TO = new Point(100, 200);
+
+    @Test
+    public void linearPathHasOnePointPerFrame() {
+        List<Point> points = Gestures.path(FROM, TO, Duration.ofMillis(160), t -> t);
+        // 160 ms of 16 ms frames: 10 segments, 11 points
+        Assert.assertEquals(points.size(), 11);
+        Assert.assertEquals(points.get(0), FROM);
+        Assert.assertEquals(points.get(5), new Point(100, 600));
+        Assert.assertEquals(points.get(10), TO);
+    }
+
+    @Test
+    public void pathPointsAreCapped() {
+        Assert.assertEquals(Gestures.path(FROM, TO, Duration.ofSeconds(5), t -> t).size(), 40);
+        Assert.assertEquals(Gestures.path(FROM, TO, Duration.ZERO, t -> t), List.of(FROM, TO));
+    }
+
+    @Test
+    public void easingMovesFurtherEarly() {
+        List<Point> eased = Gestures.path(FROM, TO, Duration.ofMillis(160), t -> 1 - Math.pow(1 - t, 3));
+        List<Point> linear = Gestures.path(FROM, TO, Duration.ofMillis(160), t -> t);
+        Assert.assertTrue(eased.get(2).getY() < linear.get(2).getY(), eased.toString());
+        Assert.assertEquals(eased.get(eased.size() - 1), TO);
+    }
+}
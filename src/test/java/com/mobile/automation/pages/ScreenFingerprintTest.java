@@ -0,0 +1,37 @@
+package com.mobile.automation.pages;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ScreenFingerprintTest {
+    private static final String ACTIVITY = ".MainActivity";
+    private static final String PHONE_SCREEN = "<hierarchy><android.widget.FrameLayout bounds=\"[0,0][1080,2280]\">"
+            + "<android.widget.EditText resource-id=\"app:id/phone\" text=\"%s\" focused=\"%s\"/>"
+            + "<android.widget.Button resource-id=\"app:id/next\" text=\"Next\"/></android.widget.FrameLayout></hierarchy>";
+
+    @Test
+    public void ignoresTextAndFocus() {
+        ScreenFingerprint empty = ScreenFingerprint.of(ACTIVITY, String.format(PHONE_SCREEN, "", "false"));
+        ScreenFingerprint typed = ScreenFingerprint.of(ACTIVITY, String.format(PHONE_SCREEN, "5551234", "true"));
+        Assert.assertEquals(typed, empty);
+        Assert.assertEquals(typed.hashCode(), empty.hashCode());
+    }
+
+    @Test
+    public void changesWithResourceIdsElementsAndActivity() {
+        ScreenFingerprint phone = ScreenFingerprint.of(ACTIVITY, String.format(PHONE_SCREEN, "", "false"));
+        Assert.assertNotEquals(ScreenFingerprint.of(ACTIVITY,
+                String.format(PHONE_SCREEN, "", "false").replace("app:id/next", "app:id/confirm")), phone);
+        Assert.assertNotEquals(ScreenFingerprint.of(ACTIVITY,
+                String.format(PHONE_SCREEN, "", "false").replace("</android.widget.FrameLayout>",
+                        "<android.widget.TextView/></android.widget.FrameLayout>")), phone);
+        Assert.assertNotEquals(ScreenFingerprint.of(".CountryActivity", String.format(PHONE_SCREEN, "", "false")), phone);
+    }
+
+    @Test
+    public void countsElementsAndKeepsActivity() {
+        ScreenFingerprint phone = ScreenFingerprint.of(null, String.format(PHONE_SCREEN, "", "false"));
+        Assert.assertEquals(phone.getActivity(), "");
+        Assert.assertTrue(phone.toString().endsWith("/4"), phone.toString());
+    }
+}
@@ -0,0 +1,20 @@
+package com.mobile.automation.pages;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TextEntryTest {
+
+    @Test
+    public void ignoresFormatterCharacters() {
+        Assert.assertTrue(TextEntry.matches("5551234567", "(555) 123-4567"));
+        Assert.assertTrue(TextEntry.matches("555 123 4567", "5551234567"));
+    }
+
+    @Test
+    public void rejectsDifferentOrMissingText() {
+        Assert.assertFalse(TextEntry.matches("5551234567", "555123456"));
+        Assert.assertFalse(TextEntry.matches("5551234567", "+1 555 123 4567"));
+        Assert.assertFalse(TextEntry.matches("5551234567", null));
+    }
+}
@@ -0,0 +1,100 @@
+package com.mobile.automation.runner;
+
+import com.mobile.automation.context.TestContext;
+import com.mobile.automation.pages.HomePage;
+import io.appium.java_client.android.AndroidDriver;
+import io.appium.java_client.android.options.UiAutomator2Options;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebElement;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.SessionId;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares page object construction and element access cost of the generated PageLocators and PageFactory proxies
+ * Runs against an in-memory command executor, so only client-side cost is measured; no server or device is needed
+ * Usage: mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.mobile.automation.runner.PageBindingBenchmark
+ */
+public class PageBindingBenchmark {
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURED_NANOS = 5_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        StubCommandExecutor executor = new StubCommandExecutor();
+        AndroidDriver driver = new AndroidDriver(executor, new UiAutomator2Options());
+        executor.element.setParent(driver);
+        TestContext.current().setDriver(driver);
+
+        for (String mode : new String[] {"true", "false"}) {
+            System.setProperty("pages.generated", mode);
+            String label = "true".equals(mode) ? "generated" : "PageFactory";
+
+            measure(label + " construction", () -> new HomePage());
+            HomePage page = new HomePage();
+            measure(label + " element access", () -> page.phoneField.isDisplayed());
+        }
+        TestContext.close();
+    }
+
+    private static void measure(String name, Runnable operation) {
+        run(operation, WARMUP_NANOS);
+        long start = System.nanoTime();
+        long operations = run(operation, MEASURED_NANOS);
+        double nanosPerOperation = (System.nanoTime() - start) / (double) operations;
+        System.out.printf("%-32s %10.0f ns/op (%d ops)%n", name, nanosPerOperation, operations);
+    }
+
+    private static long run(Runnable operation, long durationNanos) {
+        long deadline = System.nanoTime() + durationNanos;
+        long operations = 0;
+        while (System.nanoTime() < deadline) {
+            operation.run();
+            operations++;
+        }
+        return operations;
+    }
+
+    /**
+     * Answers driver commands in memory: a session, one element for every lookup and "true" for everything else
+     */
+    private static class StubCommandExecutor extends HttpCommandExecutor {
+        private final RemoteWebElement element = new RemoteWebElement();
+
+        StubCommandExecutor() throws Exception {
+            super(new URL("http://127.0.0.1:4723"));
+            element.setId("stub-element");
+        }
+
+        @Override
+        public Response execute(Command command) {
+            Response response = new Response(new SessionId("stub-session"));
+            switch (command.getName()) {
+                case DriverCommand.NEW_SESSION:
+                    Map<String, Object> capabilities = new HashMap<>();
+                    capabilities.put("platformName", "Android");
+                    capabilities.put("appium:automationName", "UiAutomator2");
+                    response.setValue(capabilities);
+                    break;
+                case DriverCommand.FIND_ELEMENT:
+                    response.setValue(element);
+                    break;
+                case DriverCommand.FIND_ELEMENTS:
+                    response.setValue(Collections.singletonList(element));
+                    break;
+                case "getSettings":
+                    response.setValue(Collections.emptyMap());
+                    break;
+                default:
+                    response.setValue(Boolean.TRUE);
+            }
+            response.setState("success");
+            return response;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.mobile.automation.runner;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.aventstack.extentreports.reporter.configuration.Theme;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mobile.automation.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Combines the result archives written by ResultArchiveListener on each shard
+ * Archives are read line by line in one pass, producing one Extent report and the per-method timing dataset
+ * used by timing-based sharding on the next run
+ * Usage: ResultArchiveMerger archive.jsonl [archive.jsonl ...]
+ */
+public class ResultArchiveMerger {
+    private static final Logger logger = LoggerFactory.getLogger(ResultArchiveMerger.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: ResultArchiveMerger archive.jsonl [archive.jsonl ...]");
+            System.exit(2);
+        }
+
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
+        Path reportPath = Paths.get("reports", "ExtentReport_merged_" + timestamp + ".html");
+        Files.createDirectories(reportPath.getParent());
+
+        ExtentSparkReporter sparkReporter = new ExtentSparkReporter(reportPath.toString());
+        sparkReporter.config().setDocumentTitle("Appium Mobile Automation Test Report");
+        sparkReporter.config().setReportName("Mobile Application Test Results (merged shards)");
+        sparkReporter.config().setTheme(Theme.STANDARD);
+        sparkReporter.config().setTimeStampFormat("yyyy-MM-dd HH:mm:ss");
+        ExtentReports extentReports = new ExtentReports();
+        extentReports.attachReporter(sparkReporter);
+        extentReports.setSystemInfo("Framework", "Appium + TestNG");
+        extentReports.setSystemInfo("Shard archives", String.valueOf(args.length));
+
+        Map<String, Long> timings = new TreeMap<>();
+        int records = 0;
+        for (String archive : args) {
+            try (BufferedReader reader = Files.newBufferedReader(Paths.get(archive), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    JsonNode record = objectMapper.readTree(line);
+                    addToReport(extentReports, record);
+                    long duration = record.path("end").asLong() - record.path("start").asLong();
+                    timings.merge(record.path("test").asText(), duration, Long::sum);
+                    records++;
+                }
+            }
+        }
+        extentReports.flush();
+
+        Path timingsPath = Paths.get(ConfigManager.getTestTimingsFile());
+        if (timingsPath.getParent() != null) {
+            Files.createDirectories(timingsPath.getParent());
+        }
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(timingsPath, StandardCharsets.UTF_8))) {
+            writer.println("test,durationMillis");
+            timings.forEach((test, duration) -> writer.println(test + "," + duration));
+        }
+
+        logger.info("Merged {} results from {} archives into {}; timings for {} tests written to {}",
+                records, args.length, reportPath, timings.size(), timingsPath);
+    }
+
+    private static void addToReport(ExtentReports extentReports, JsonNode record) {
+        String test = record.path("test").asText();
+        String methodName = test.substring(test.indexOf('#') + 1);
+        String description = record.path("description").asText(methodName);
+        ExtentTest extentTest = extentReports.createTest(methodName, description);
+        extentTest.assignCategory(test.substring(0, test.indexOf('#')));
+        extentTest.assignDevice(record.path("device").asText("default"));
+
+        Status status = Status.valueOf(record.path("status").asText("PASS"));
+        extentTest.log(Status.INFO, "Shard " + record.path("shard").asInt() + ", parameters " + record.path("parameters").asText());
+        if (record.hasNonNull("error")) {
+            extentTest.log(status, "Error: " + record.path("error").asText());
+        } else {
+            extentTest.log(status, status == Status.PASS ? "Test passed successfully" : "Test " + status);
+        }
+        extentTest.getModel().setStartTime(new Date(record.path("start").asLong()));
+        extentTest.getModel().setEndTime(new Date(record.path("end").asLong()));
+    }
+}
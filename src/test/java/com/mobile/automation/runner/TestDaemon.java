@@ -0,0 +1,242 @@
+package com.mobile.automation.runner;
+
+import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.listeners.DevicePreparationListener;
+import com.mobile.automation.utils.AppiumServerManager;
+import com.mobile.automation.utils.DevicePool;
+import com.mobile.automation.utils.DriverManager;
+import com.mobile.automation.utils.SessionReaper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.TestNG;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import org.testng.xml.internal.Parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-lived test runner that keeps the JVM, the prepared devices and the Appium sessions between runs
+ * Devices (and managed Appium servers) are prepared once at start; sessions are parked after each test and reused,
+ * with the app reset, by the next test on the same device. TestDaemonClient submits test classes or methods over a
+ * local socket and the results are streamed back line by line
+ * Test classes are reloaded from the test output directory for every run, so after mvn test-compile the next run
+ * uses the changed tests; changes to page objects or framework classes need a daemon restart
+ * Usage: mvn -q exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.mobile.automation.runner.TestDaemon
+ * [-Dexec.args=suite.xml]; the suite file provides parameters and listeners, defaults to src/test/resources/testng.xml
+ */
+public class TestDaemon {
+    private static final Logger logger = LoggerFactory.getLogger(TestDaemon.class);
+    private static final String DEFAULT_SUITE = "src/test/resources/testng.xml";
+    private static final String TEST_PACKAGE = "com.mobile.automation.tests.";
+    // Default of daemon.port, for TestDaemonClient which does not load ConfigManager
+    static final int DEFAULT_PORT = 7878;
+    static final String STOP = "STOP";
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("session.reuse", "true");
+        if (System.getProperty("testng.dtd.http") == null) {
+            System.setProperty("testng.dtd.http", "true");
+        }
+        String suiteFile = args.length > 0 ? args[0] : DEFAULT_SUITE;
+
+        SessionReaper.start();
+        List<String> devices = DevicePool.prepareAll();
+        if (!devices.isEmpty() && ConfigManager.isManagedAppiumServerEnabled()) {
+            AppiumServerManager.startAll(devices);
+        }
+
+        int port = ConfigManager.getDaemonPort();
+        try (ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            logger.info("Test daemon ready on port {} with {} device(s)", port, devices.size());
+            boolean running = true;
+            while (running) {
+                try (Socket client = server.accept();
+                     BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                     PrintWriter out = new PrintWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8), true)) {
+                    String request = in.readLine();
+                    if (request == null || request.trim().isEmpty()) {
+                        continue;
+                    }
+                    if (STOP.equals(request.trim())) {
+                        out.println("STOPPED");
+                        running = false;
+                    } else {
+                        run(suiteFile, request.trim().split("\\s+"), out);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    logger.error("Failed to serve test daemon request", e);
+                }
+            }
+        }
+
+        logger.info("Stopping test daemon");
+        DriverManager.quitParkedSessions();
+        if (ConfigManager.isManagedAppiumServerEnabled()) {
+            AppiumServerManager.stopAll();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Run the selected tests with the suite file's parameters and listeners and stream the results
+     * @param suiteFile TestNG suite file
+     * @param selectors Test classes or Class#method, with or without the com.mobile.automation.tests package
+     * @param out Client connection
+     */
+    private static void run(String suiteFile, String[] selectors, PrintWriter out) {
+        long start = System.currentTimeMillis();
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        try (TestClassLoader loader = new TestClassLoader(previous)) {
+            Thread.currentThread().setContextClassLoader(loader);
+            List<XmlSuite> suites = createSuites(suiteFile, selectors, loader);
+
+            ResultStream results = new ResultStream(out);
+            TestNG testng = new TestNG();
+            testng.setUseDefaultListeners(false);
+            testng.setXmlSuites(suites);
+            testng.addListener(results);
+            testng.run();
+            out.println("DONE status=" + testng.getStatus() + " passed=" + results.passed + " failed=" + results.failed
+                    + " skipped=" + results.skipped + " in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            logger.error("Test daemon run failed", e);
+            out.println("ERROR " + e);
+            out.println("DONE status=1 passed=0 failed=0 skipped=0 in " + (System.currentTimeMillis() - start) + " ms");
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+        }
+    }
+
+    /**
+     * Parse the suite file and replace its tests with one test of the selected classes and methods
+     * Device preparation is dropped from the listeners because the daemon has already done it
+     */
+    private static List<XmlSuite> createSuites(String suiteFile, String[] selectors, ClassLoader loader) throws Exception {
+        Map<String, List<XmlInclude>> methodsByClass = new LinkedHashMap<>();
+        for (String selector : selectors) {
+            String[] parts = selector.split("#", 2);
+            String className = parts[0].contains(".") ? parts[0] : TEST_PACKAGE + parts[0];
+            List<XmlInclude> methods = methodsByClass.computeIfAbsent(className, name -> new ArrayList<>());
+            if (parts.length > 1) {
+                methods.add(new XmlInclude(parts[1]));
+            }
+        }
+
+        Collection<XmlSuite> parsed = new Parser(suiteFile).parseToList();
+        XmlSuite suite = parsed.iterator().next();
+        suite.getListeners().remove(DevicePreparationListener.class.getName());
+        XmlTest test = suite.getTests().get(0);
+        suite.getTests().retainAll(List.of(test));
+        test.setName("TestDaemon");
+        test.setXmlPackages(new ArrayList<>());
+
+        List<XmlClass> classes = new ArrayList<>();
+        for (Map.Entry<String, List<XmlInclude>> entry : methodsByClass.entrySet()) {
+            XmlClass xmlClass = new XmlClass(loader.loadClass(entry.getKey()));
+            // Without includes TestNG runs every test method of the class
+            xmlClass.setIncludedMethods(entry.getValue());
+            classes.add(xmlClass);
+        }
+        test.setXmlClasses(classes);
+        return List.of(suite);
+    }
+
+    /**
+     * Streams one line per finished test to the client
+     */
+    private static final class ResultStream implements ITestListener {
+        private final PrintWriter out;
+        private final AtomicInteger passed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+
+        private ResultStream(PrintWriter out) {
+            this.out = out;
+        }
+
+        @Override
+        public void onTestStart(ITestResult result) {
+            send("START", result, null);
+        }
+
+        @Override
+        public void onTestSuccess(ITestResult result) {
+            passed.incrementAndGet();
+            send("PASS", result, null);
+        }
+
+        @Override
+        public void onTestFailure(ITestResult result) {
+            failed.incrementAndGet();
+            send("FAIL", result, result.getThrowable());
+        }
+
+        @Override
+        public void onTestSkipped(ITestResult result) {
+            skipped.incrementAndGet();
+            send("SKIP", result, result.getThrowable());
+        }
+
+        private synchronized void send(String status, ITestResult result, Throwable error) {
+            StringBuilder line = new StringBuilder(status).append(' ')
+                    .append(result.getTestClass().getRealClass().getSimpleName()).append('#')
+                    .append(result.getMethod().getMethodName());
+            if (!"START".equals(status)) {
+                line.append(" (").append(result.getEndMillis() - result.getStartMillis()).append(" ms)");
+            }
+            if (error != null) {
+                line.append(": ").append(String.valueOf(error.getMessage()).replace('\n', ' '));
+            }
+            out.println(line);
+        }
+    }
+
+    /**
+     * Loads the test classes child-first from the test output directory, so every run sees the latest compiled tests
+     * Everything else comes from the daemon's class path and keeps its state between runs
+     */
+    private static final class TestClassLoader extends URLClassLoader {
+
+        private TestClassLoader(ClassLoader parent) {
+            super(new URL[] {TestDaemon.class.getProtectionDomain().getCodeSource().getLocation()}, parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(TEST_PACKAGE)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    loaded = findClass(name);
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+    }
+}
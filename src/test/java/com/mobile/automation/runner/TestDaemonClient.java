@@ -0,0 +1,49 @@
+package com.mobile.automation.runner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Thin client for TestDaemon: submits tests and prints the streamed results
+ * Uses only JDK classes, so it starts in a fraction of a second with just the test classes on the class path
+ * Usage: java -cp target/test-classes com.mobile.automation.runner.TestDaemonClient RegistrationTest#editPhoneNumber
+ * Pass STOP to shut the daemon down; -Ddaemon.port selects the port (default 7878)
+ * Exits with the TestNG status of the run, or 2 when no daemon is running
+ */
+public class TestDaemonClient {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: TestDaemonClient <TestClass[#method]>... | STOP");
+            System.exit(2);
+        }
+        int port = Integer.getInteger("daemon.port", TestDaemon.DEFAULT_PORT);
+        int status = 1;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+            out.println(String.join(" ", args));
+            String line;
+            while ((line = in.readLine()) != null) {
+                System.out.println(line);
+                if (line.startsWith("DONE status=")) {
+                    status = Integer.parseInt(line.substring("DONE status=".length()).split(" ")[0]);
+                } else if (line.equals("STOPPED")) {
+                    status = 0;
+                }
+            }
+        } catch (ConnectException e) {
+            System.err.println("No test daemon on port " + port + ". Start one with: mvn -q exec:java "
+                    + "-Dexec.classpathScope=test -Dexec.mainClass=com.mobile.automation.runner.TestDaemon");
+            System.exit(2);
+        }
+        System.exit(status);
+    }
+}
@@ -0,0 +1,33 @@
+package com.mobile.automation.runner;
+
+import com.mobile.automation.utils.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.TestNG;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Entry point for running TestNG suites with test methods on virtual threads
+ * Surefire cannot pass a TestNG executor factory, so the virtual-threads Maven profile starts this class instead
+ * Usage: VirtualThreadSuiteRunner [suite.xml ...], defaults to src/test/resources/testng.xml
+ */
+public class VirtualThreadSuiteRunner {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadSuiteRunner.class);
+    private static final String DEFAULT_SUITE = "src/test/resources/testng.xml";
+
+    public static void main(String[] args) {
+        System.setProperty("execution.mode", "virtual");
+        if (!VirtualThreads.isEnabled()) {
+            logger.warn("Virtual threads need JDK 21 or newer (running {}); tests will use platform threads",
+                    System.getProperty("java.version"));
+        }
+
+        TestNG testng = new TestNG();
+        testng.setTestSuites(args.length > 0 ? Arrays.asList(args) : Collections.singletonList(DEFAULT_SUITE));
+        testng.setExecutorFactoryClass(VirtualThreadExecutorFactory.class.getName());
+        testng.run();
+        System.exit(testng.getStatus());
+    }
+}
@@ -1,14 +1,25 @@
 package com.mobile.automation.tests;
 
+import com.mobile.automation.context.TestContext;
+import com.mobile.automation.data.DataCheckpoint;
+import com.mobile.automation.data.DataRow;
+import com.mobile.automation.utils.DevicePool;
+import com.mobile.automation.utils.DriverCassette;
 import com.mobile.automation.utils.DriverManager;
 import com.mobile.automation.utils.DeviceUtils;
+import com.mobile.automation.utils.FlowTimer;
+import com.mobile.automation.utils.PerformanceSampler;
+import com.mobile.automation.utils.TraceRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.testng.ITestResult;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Optional;
 import org.testng.annotations.Parameters;
 
+import java.util.StringJoiner;
+
 /**
  * Base Test class that provides common setup and teardown functionality
  * All test classes should extend this class
@@ -22,16 +33,29 @@ public class BaseTest {
      */
     @BeforeMethod(alwaysRun = true)
     @Parameters({"deviceName", "platformVersion"})
-    public void setUp(@Optional("iPhone") String deviceName,
+    public void setUp(ITestResult result,
+                      @Optional("iPhone") String deviceName,
                       @Optional("18.0") String platformVersion) {
         try {
             logger.info("=== Test Setup Started ===");
             logger.info("Device Name: {}", deviceName);
             logger.info("Platform Version: {}", platformVersion);
             
-            // Prepare device first
-            logger.info("Preparing device for testing...");
-            DeviceUtils.prepareDevice();
+            // Record or replay the test's driver commands when cassette.mode is set
+            DriverCassette.startFlow(getFlowName(result));
+            
+            // Lease a device prepared at suite start, or prepare the single default device
+            if (DriverCassette.isReplaying()) {
+                logger.info("Replaying recorded driver commands, no device needed");
+            } else {
+                String deviceSerial = DevicePool.acquire();
+                if (deviceSerial != null) {
+                    logger.info("Using prepared device {}", deviceSerial);
+                } else {
+                    logger.info("Preparing device for testing...");
+                    DeviceUtils.prepareDevice();
+                }
+            }
             
             // Initialize driver
             logger.info("Initializing Appium driver...");
@@ -51,10 +75,13 @@ public class BaseTest {
      * Quits the Appium driver and cleans up resources
      */
     @AfterMethod(alwaysRun = true)
-    public void tearDown() {
+    public void tearDown(ITestResult result) {
         try {
             logger.info("=== Test Teardown Started ===");
             
+            // Record completed data-driven rows so a crashed run can resume
+            recordCompletedDataRow(result);
+            
             // Quit driver
             if (DriverManager.isDriverInitialized()) {
                 DriverManager.quitDriver();
@@ -63,10 +90,59 @@ public class BaseTest {
                 logger.warn("Driver was not initialized, skipping quit");
             }
             
+            // Return the device to the pool
+            DevicePool.release();
+            
             logger.info("=== Test Teardown Completed ===");
             
         } catch (Exception e) {
             logger.error("Error during test teardown", e);
+        } finally {
+            try {
+                // The recorded commands end with the session's quit; a replay that stopped short fails here
+                DriverCassette.endFlow();
+            } finally {
+                // Drop per-test state so pooled threads start the next test clean
+                TestContext.close();
+            }
+        }
+    }
+    
+    /**
+     * Name a test invocation by its method and parameters, so data-driven rows keep their name whatever order or
+     * shard they run in
+     * @param result ITestResult of the test method about to run
+     * @return e.g. "RegistrationTest#testRegistrationWithDataset[registration#12]"
+     */
+    private String getFlowName(ITestResult result) {
+        StringBuilder name = new StringBuilder(result.getTestClass().getRealClass().getSimpleName())
+                .append('#').append(result.getMethod().getMethodName());
+        Object[] parameters = result.getParameters();
+        if (parameters.length > 0) {
+            StringJoiner values = new StringJoiner(",", "[", "]");
+            for (Object parameter : parameters) {
+                values.add(parameter instanceof DataRow
+                        ? ((DataRow) parameter).getDataset() + "#" + ((DataRow) parameter).getRowNumber()
+                        : String.valueOf(parameter));
+            }
+            name.append(values);
+        }
+        return name.toString();
+    }
+    
+    /**
+     * Mark the DataRow parameter of a passed test as completed in its shard checkpoint
+     * @param result ITestResult of the finished test method
+     */
+    private void recordCompletedDataRow(ITestResult result) {
+        if (result.getStatus() != ITestResult.SUCCESS) {
+            return;
+        }
+        for (Object parameter : result.getParameters()) {
+            if (parameter instanceof DataRow) {
+                DataRow row = (DataRow) parameter;
+                DataCheckpoint.forConfiguredShard(row.getDataset()).markCompleted(row.getRowNumber());
+            }
         }
     }
     
@@ -96,7 +172,20 @@ public class BaseTest {
      * @param stepDescription String description of the test step
      */
     protected void logTestStep(String stepDescription) {
+        logTestStep(stepDescription, 0);
+    }
+    
+    /**
+     * Helper method to add test step logging with a latency budget for the step
+     * The step lasts until the next step starts or the test method ends
+     * @param stepDescription String description of the test step
+     * @param budgetMillis long milliseconds the step may take, 0 for no budget
+     */
+    protected void logTestStep(String stepDescription, long budgetMillis) {
         logger.info("STEP: {}", stepDescription);
+        PerformanceSampler.markStep(stepDescription);
+        TraceRecorder.step(stepDescription);
+        FlowTimer.step(stepDescription, budgetMillis);
     }
     
     /**
@@ -1,10 +1,19 @@
 package com.mobile.automation.tests;
 
 import com.mobile.automation.config.ConfigManager;
+import com.mobile.automation.data.DataRow;
+import com.mobile.automation.data.StreamingDataSource;
 import com.mobile.automation.pages.HomePage;
+import com.mobile.automation.pages.NavigationShortcutRegistry;
+import com.mobile.automation.utils.LatencyBudget;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.util.Collections;
+import java.util.Iterator;
+
 /**
  * Test class for Registration Page functionality
  * Contains the testSuccessfulRegistrationWithValidData test
@@ -19,6 +28,7 @@ public class RegistrationTest extends BaseTest {
 
 
     @Test(description = "Verify successful user flow to Phone Number confirmation Screen")
+    @LatencyBudget(millis = 60000)
     public void testUserRegistrationToConfirmationScreen() {
         logTestStart("True caller App Launch and Basic Navigation to Phone Number confirmation Screen");
 
@@ -34,6 +44,7 @@ public class RegistrationTest extends BaseTest {
         logger.info("Landed on Home Page. Verifying {} is displayed", homePage.getStartedButton.getText());
         homePage.safeClick(homePage.getStartedButton);
 
+        logTestStep("Entering country and phone number", 20000);
         homePage.setCountryAndPhoneNumber(country, phoneNumber);
 
         String phoneNumberOnTheFinalScreen = homePage.phoneNumberConfirmation.getText();
@@ -46,13 +57,8 @@ public class RegistrationTest extends BaseTest {
     @Test(description = "Verify user can edit phone number")
     public void editPhoneNumber() {
 
-        HomePage homePage = new HomePage();
-
-        logger.info("Attempting to verify home page is loaded");
-        homePage.isPageLoaded();
-
-        logTestStep("Tapping get started button in the edit phone number test");
-        homePage.safeClick(homePage.getStartedButton);
+        logTestStep("Navigating directly to the phone entry screen");
+        HomePage homePage = NavigationShortcutRegistry.navigateTo(HomePage.class, HomePage.PHONE_ENTRY);
 
         logger.info("Inserting country and phone number");
         homePage.editPhoneNumber(country, phoneNumber);
@@ -67,12 +73,8 @@ public class RegistrationTest extends BaseTest {
     @Test(description = "Test Invalid Phone Number")
     public void invalidPhoneNumber() {
 
-        HomePage homePage = new HomePage();
-        logger.info("Verifying Home Page is loaded");
-        homePage.isPageLoaded();
-
-        logTestStep("Tapping Get Started Button");
-        homePage.safeClick(homePage.getStartedButton);
+        logTestStep("Navigating directly to the phone entry screen");
+        HomePage homePage = NavigationShortcutRegistry.navigateTo(HomePage.class, HomePage.PHONE_ENTRY);
 
         logger.info("Puttingincorrect phone number");
         homePage.setIncorrectCountryAndPhoneNumber(country, incorrectPhoneNumber);
@@ -82,4 +84,35 @@ public class RegistrationTest extends BaseTest {
 
 
     }
+
+    /**
+     * Streams country/phone rows from the configured registration dataset for this shard
+     * Yields no rows when registration.data.file is not set
+     */
+    @DataProvider(name = "registrationData")
+    public Iterator<Object[]> registrationData() {
+        String dataFile = ConfigManager.getRegistrationDataFile();
+        if (dataFile == null || dataFile.trim().isEmpty()) {
+            logger.info("No registration dataset configured, skipping data-driven registration");
+            return Collections.emptyIterator();
+        }
+        return StreamingDataSource.forConfiguredShard(new File(dataFile));
+    }
+
+    @Test(dataProvider = "registrationData", description = "Verify phone number confirmation for each dataset country/phone pair")
+    public void testRegistrationWithDataset(DataRow row) {
+        String rowCountry = row.get("country");
+        String rowPhone = row.get("phone");
+
+        // Step names stay the same for every row, so all rows share one latency baseline per step
+        logger.info("Dataset row: {}", row);
+        logTestStep("Navigating directly to the phone entry screen");
+        HomePage homePage = NavigationShortcutRegistry.navigateTo(HomePage.class, HomePage.PHONE_ENTRY);
+
+        homePage.setCountryAndPhoneNumber(rowCountry, rowPhone);
+
+        String phoneNumberOnTheFinalScreen = homePage.phoneNumberConfirmation.getText();
+        Assert.assertTrue(phoneNumberOnTheFinalScreen.replaceAll(" ", "").endsWith(rowPhone),
+                "Confirmation screen shows " + phoneNumberOnTheFinalScreen + " for " + row);
+    }
 }
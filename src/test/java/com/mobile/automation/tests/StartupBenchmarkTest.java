@@ -0,0 +1,67 @@
+package com.mobile.automation.tests;
+
+import com.aventstack.extentreports.Status;
+import com.mobile.automation.listeners.ExtentReportListener;
+import com.mobile.automation.utils.DeviceUtils;
+import com.mobile.automation.utils.StartupBenchmark;
+import com.mobile.automation.utils.StartupBenchmark.StartMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+/**
+ * Startup benchmark for the app under test
+ * Runs without an Appium session so the UiAutomator2 server does not skew launch times
+ * Run with: mvn test -Dtest=StartupBenchmarkTest [-Dstartup.baseline.update=true]
+ */
+public class StartupBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(StartupBenchmarkTest.class);
+
+    private int iterations;
+    private int warmupIterations;
+
+    @BeforeClass(alwaysRun = true)
+    @Parameters({"startupIterations", "startupWarmupIterations"})
+    public void setUp(@Optional("20") String iterations, @Optional("3") String warmupIterations) {
+        this.iterations = Integer.parseInt(iterations);
+        this.warmupIterations = Integer.parseInt(warmupIterations);
+        DeviceUtils.prepareDevice();
+    }
+
+    @Test(description = "Cold start time compared with the stored baseline")
+    public void coldStartup() {
+        runBenchmark(StartMode.COLD);
+    }
+
+    @Test(description = "Warm start time compared with the stored baseline")
+    public void warmStartup() {
+        runBenchmark(StartMode.WARM);
+    }
+
+    @Test(description = "First launch after clearing app data compared with the stored baseline")
+    public void firstLaunchStartup() {
+        runBenchmark(StartMode.FIRST_LAUNCH);
+    }
+
+    private void runBenchmark(StartMode mode) {
+        StartupBenchmark.Result result = new StartupBenchmark(mode, iterations, warmupIterations).run();
+
+        ExtentReportListener.logStep(Status.INFO, mode + " TotalTime (ms): " + result.getTotalTime());
+        ExtentReportListener.logStep(Status.INFO, mode + " WaitTime (ms): " + result.getWaitTime());
+        if (result.getBaseline() != null) {
+            ExtentReportListener.logStep(Status.INFO, String.format("Baseline %s: mean %.1f ms over %d launches",
+                    result.getBaselineVersion(), result.getBaseline().getMean(), result.getBaseline().getCount()));
+        }
+
+        if (result.getBaseline() == null || Boolean.getBoolean("startup.baseline.update")) {
+            logger.info("Recording {} startup of {} as the new baseline", mode, result.getAppVersion());
+            StartupBenchmark.saveBaseline(result);
+        }
+        Assert.assertFalse(result.isRegression(), mode + " startup regressed against baseline "
+                + result.getBaselineVersion() + ": " + result.getTotalTime());
+    }
+}
@@ -0,0 +1,201 @@
+package com.mobile.automation.utils;
+
+import com.mobile.automation.context.TestContext;
+import io.appium.java_client.AppiumClientConfig;
+import io.appium.java_client.android.AndroidDriver;
+import io.appium.java_client.android.options.UiAutomator2Options;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records a session against an in-memory server and replays it without one
+ */
+public class DriverCassetteTest {
+    private static final String FLOW = "DriverCassetteTest#flow";
+    private static final String FIND = "POST /session/stub/element";
+    private static final String CLICK = "POST /session/stub/element/element-1/click";
+    private static final String SOURCE = "GET /session/stub/source";
+
+    private File cassette;
+    private final AtomicInteger serverCalls = new AtomicInteger();
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        cassette = Files.createTempDirectory("cassette").resolve("driver-cassette.zip").toFile();
+        System.setProperty("cassette.file", cassette.getPath());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        DriverCassette.endFlow();
+        TestContext.close();
+        DriverCassette.close();
+        System.clearProperty("cassette.mode");
+        System.clearProperty("cassette.file");
+    }
+
+    @Test
+    public void replaysRecordedSessionWithoutServer() throws Exception {
+        record();
+        int callsWhileRecording = serverCalls.get();
+
+        System.setProperty("cassette.mode", "replay");
+        DriverCassette.startFlow(FLOW);
+        AndroidDriver driver = createDriver(DriverCassette.replayFilter());
+        Assert.assertEquals(runFlow(driver, "phone"), "<hierarchy rotation=\"0\"/>");
+        driver.quit();
+        DriverCassette.endFlow();
+
+        Assert.assertEquals(serverCalls.get(), callsWhileRecording, "replay reached the server");
+        Assert.assertTrue(DriverCassette.getDivergences().isEmpty(), DriverCassette.getDivergences().toString());
+    }
+
+    @Test
+    public void reportsTheCommandThatDiverged() throws Exception {
+        record();
+
+        System.setProperty("cassette.mode", "replay");
+        DriverCassette.startFlow(FLOW);
+        AndroidDriver driver = createDriver(DriverCassette.replayFilter());
+        WebDriverException error = Assert.expectThrows(WebDriverException.class, () -> runFlow(driver, "email"));
+
+        String expected = "Replay of " + FLOW + " diverged at command 3 of 6: expected POST /session/stub/element "
+                + "{\"using\":\"id\",\"value\":\"phone\"} but the test sent POST /session/stub/element "
+                + "{\"using\":\"id\",\"value\":\"email\"}";
+        Assert.assertTrue(error.getMessage().startsWith(expected), error.getMessage());
+        Assert.assertEquals(DriverCassette.getDivergences(), Arrays.asList(expected));
+    }
+
+    @Test
+    public void failsTestThatEndsBeforeItsRecording() throws Exception {
+        record();
+
+        System.setProperty("cassette.mode", "replay");
+        DriverCassette.startFlow(FLOW);
+        AndroidDriver driver = createDriver(DriverCassette.replayFilter());
+        // Leaves out the page source read and the quit of the recording
+        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(5));
+        driver.findElement(By.id("phone")).click();
+
+        RuntimeException error = Assert.expectThrows(RuntimeException.class, DriverCassette::endFlow);
+        Assert.assertTrue(error.getMessage().contains("but the test ended"), error.getMessage());
+    }
+
+    @Test
+    public void toleratesFewerAndMorePolls() {
+        System.setProperty("cassette.mode", "replay");
+        DriverCassette.Flow fewer = new DriverCassette.Flow(FLOW, Arrays.asList(
+                command(FIND, "missing"), command(FIND, "missing"), command(FIND, "found"), command(CLICK, "ok")));
+        Assert.assertEquals(fewer.serve(command(FIND, null)).response, "missing");
+        Assert.assertEquals(fewer.serve(command(FIND, null)).response, "missing");
+        // The third poll was not needed in this run
+        Assert.assertEquals(fewer.serve(command(CLICK, null)).response, "ok");
+
+        DriverCassette.Flow more = new DriverCassette.Flow(FLOW, Arrays.asList(command(FIND, "missing"), command(CLICK, "ok")));
+        Assert.assertEquals(more.serve(command(FIND, null)).response, "missing");
+        Assert.assertEquals(more.serve(command(FIND, null)).response, "missing");
+        Assert.assertEquals(more.serve(command(CLICK, null)).response, "ok");
+    }
+
+    @Test
+    public void repeatedActionsDiverge() {
+        System.setProperty("cassette.mode", "replay");
+        DriverCassette.Flow twice = new DriverCassette.Flow(FLOW, Arrays.asList(command(CLICK, "ok"), command(SOURCE, "<a/>")));
+        Assert.assertEquals(twice.serve(command(CLICK, null)).response, "ok");
+        Assert.expectThrows(RuntimeException.class, () -> twice.serve(command(CLICK, null)));
+        Assert.assertNotNull(DriverCassette.getDivergences().get(0));
+
+        // A recorded double click must not be skipped either
+        DriverCassette.Flow once = new DriverCassette.Flow(FLOW, Arrays.asList(command(CLICK, "ok"), command(CLICK, "ok"), command(SOURCE, "<a/>")));
+        once.serve(command(CLICK, null));
+        Assert.expectThrows(RuntimeException.class, () -> once.serve(command(SOURCE, null)));
+    }
+
+    @Test
+    public void comparesBodiesAsJson() {
+        System.setProperty("cassette.mode", "replay");
+        DriverCassette.Interaction recorded = command(FIND, "found");
+        recorded.request = "{\"using\":\"id\",\"value\":\"phone\"}";
+        DriverCassette.Flow flow = new DriverCassette.Flow(FLOW, Arrays.asList(recorded));
+
+        DriverCassette.Interaction sent = command(FIND, null);
+        sent.request = "{\"value\":\"phone\",\"using\":\"id\"}";
+        Assert.assertEquals(flow.serve(sent).response, "found");
+
+        DriverCassette.Interaction other = command(FIND, null);
+        other.request = "{\"using\":\"id\",\"value\":\"email\"}";
+        Assert.expectThrows(RuntimeException.class, () -> flow.serve(other));
+    }
+
+    private void record() throws MalformedURLException {
+        System.setProperty("cassette.mode", "record");
+        DriverCassette.startFlow(FLOW);
+        AndroidDriver driver = createDriver(DriverCassette.recordFilter().andThen(stubServer()));
+        runFlow(driver, "phone");
+        driver.quit();
+        DriverCassette.endFlow();
+        DriverCassette.close();
+        Assert.assertTrue(cassette.exists(), "cassette not written");
+    }
+
+    private static String runFlow(AndroidDriver driver, String id) {
+        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(5));
+        driver.findElement(By.id(id)).click();
+        return driver.getPageSource();
+    }
+
+    private static AndroidDriver createDriver(Filter filter) throws MalformedURLException {
+        UiAutomator2Options options = new UiAutomator2Options();
+        options.setPlatformName("Android");
+        options.setAutomationName("UiAutomator2");
+        return new AndroidDriver(AppiumClientConfig.defaultConfig().baseUrl(new URL("http://127.0.0.1:4723")).withFilter(filter), options);
+    }
+
+    /**
+     * Answers commands in memory instead of sending them: a session, one element and a page source
+     */
+    private Filter stubServer() {
+        return next -> request -> {
+            serverCalls.incrementAndGet();
+            String path = request.getUri();
+            String value;
+            if (path.equals("/session")) {
+                value = "{\"sessionId\":\"stub\",\"capabilities\":{\"platformName\":\"Android\"}}";
+            } else if (path.endsWith("/element")) {
+                value = "{\"element-6066-11e4-a52e-4f735466cecf\":\"element-1\"}";
+            } else if (path.endsWith("/source")) {
+                value = "\"<hierarchy rotation=\\\"0\\\"/>\"";
+            } else {
+                value = "null";
+            }
+            return new HttpResponse()
+                    .setHeader("Content-Type", "application/json; charset=utf-8")
+                    .setContent(Contents.utf8String("{\"value\":" + value + "}"));
+        };
+    }
+
+    private static DriverCassette.Interaction command(String request, String response) {
+        DriverCassette.Interaction interaction = new DriverCassette.Interaction();
+        interaction.kind = "http";
+        interaction.method = request.substring(0, request.indexOf(' '));
+        interaction.path = request.substring(request.indexOf(' ') + 1);
+        interaction.response = response;
+        return interaction;
+    }
+}
@@ -0,0 +1,90 @@
+package com.mobile.automation.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Uses the default latency.baseline.* settings and an empty temporary cache directory
+ */
+public class LatencyBaselineTest {
+    private File cacheDir;
+
+    @BeforeClass
+    public void useEmptyCache() throws IOException {
+        cacheDir = Files.createTempDirectory("latency-baseline").toFile();
+        System.setProperty("cache.dir", cacheDir.getPath());
+        LatencyBaseline.reset();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void restoreCache() {
+        System.clearProperty("cache.dir");
+        LatencyBaseline.reset();
+    }
+
+    @Test
+    public void needsMinimumRunsBeforeComparing() {
+        String key = "LatencyBaselineTest#fewRuns";
+        for (int i = 0; i < 4; i++) {
+            LatencyBaseline.record(key, 1000);
+        }
+        LatencyBaseline.Check check = LatencyBaseline.check(key, 5000, 0);
+        Assert.assertNull(check.getBaseline());
+        Assert.assertFalse(check.isOffending());
+    }
+
+    @Test
+    public void regressionNeedsPredictionIntervalAndTolerance() {
+        String key = "LatencyBaselineTest#flow|step";
+        for (long millis : new long[]{1000, 1010, 990, 1005, 995}) {
+            LatencyBaseline.record(key, millis);
+        }
+        // Above the prediction interval (~1024 ms) and more than 20% above the median
+        LatencyBaseline.Check slow = LatencyBaseline.check(key, 1300, 0);
+        Assert.assertTrue(slow.isRegression(), slow.describe());
+        Assert.assertEquals(slow.getBaseline().getCount(), 5);
+        // Above the prediction interval, within the tolerance
+        Assert.assertFalse(LatencyBaseline.check(key, 1150, 0).isRegression());
+        Assert.assertFalse(LatencyBaseline.check(key, 1000, 0).isOffending());
+    }
+
+    @Test
+    public void budgetIsCheckedWithoutBaseline() {
+        LatencyBaseline.Check check = LatencyBaseline.check("LatencyBaselineTest#budget", 1500, 1000);
+        Assert.assertTrue(check.isOverBudget());
+        Assert.assertTrue(check.isOffending());
+        Assert.assertFalse(check.isRegression());
+        Assert.assertEquals(check.describe(), "1500 ms, over budget 1000 ms");
+        Assert.assertFalse(LatencyBaseline.check("LatencyBaselineTest#budget", 900, 1000).isOffending());
+    }
+
+    @Test
+    public void keepsOnlyRecentRuns() {
+        String key = "LatencyBaselineTest#rolling";
+        for (int i = 0; i < 25; i++) {
+            LatencyBaseline.record(key, 1000 + i);
+        }
+        SampleStatistics baseline = LatencyBaseline.check(key, 1000, 0).getBaseline();
+        Assert.assertEquals(baseline.getCount(), 20);
+        Assert.assertEquals(baseline.getValues()[0], 1005.0);
+    }
+
+    @Test
+    public void savedBaselineIsReadBack() {
+        String key = "LatencyBaselineTest#saved";
+        for (int i = 0; i < 5; i++) {
+            LatencyBaseline.record(key, 1000);
+        }
+        LatencyBaseline.save();
+        Assert.assertTrue(new File(cacheDir, "latency-baseline.properties").exists());
+
+        LatencyBaseline.reset();
+        Assert.assertEquals(LatencyBaseline.check(key, 1000, 0).getBaseline().getCount(), 5);
+    }
+}
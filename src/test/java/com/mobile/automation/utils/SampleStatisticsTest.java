@@ -0,0 +1,30 @@
+package com.mobile.automation.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class SampleStatisticsTest {
+    private static final double[] VALUES = {14, 10, 18, 12, 16};
+
+    @Test
+    public void predictionMarginUsesStudentTAndSampleSize() {
+        SampleStatistics statistics = new SampleStatistics(VALUES);
+        // t(4) = 2.776, sd = sqrt(10), sqrt(1 + 1/5)
+        Assert.assertEquals(statistics.getPredictionMargin95(), 2.776 * Math.sqrt(10) * Math.sqrt(1.2), 1e-9);
+        Assert.assertTrue(statistics.getPredictionMargin95() > statistics.getConfidenceMargin95());
+    }
+
+    @Test
+    public void predictionMarginIsUndefinedForOneValue() {
+        Assert.assertTrue(Double.isNaN(new SampleStatistics(new double[]{5}).getPredictionMargin95()));
+    }
+
+    @Test
+    public void percentilesComeFromTheSamples() {
+        SampleStatistics statistics = new SampleStatistics(VALUES);
+        Assert.assertEquals(statistics.getMean(), 14.0, 1e-9);
+        Assert.assertEquals(statistics.getMedian(), 14.0);
+        Assert.assertEquals(statistics.getPercentile(95), 18.0);
+        Assert.assertEquals(statistics.getValues(), new double[]{10, 12, 14, 16, 18});
+    }
+}